@@ -0,0 +1,211 @@
+import java.io.*; // Data streams used to serialize the sketch
+import java.util.*; // Collections used by the top-K summary
+
+/*
+ * Working Mechanism:
+ * A fixed-memory approximation of the hashtag counts in Question4A.
+ * - A Count-Min Sketch (depth rows of width counters) estimates the count of any hashtag.
+ *   With width = ceil(e / epsilon) and depth = ceil(ln(1 / delta)), an estimate is never
+ *   below the true count and exceeds it by at most epsilon * N with probability 1 - delta,
+ *   where N is the total number of hashtags added.
+ * - A Space-Saving summary keeps at most 'capacity' candidate heavy hitters. When it is full,
+ *   a new hashtag replaces the candidate with the smallest count and inherits that count.
+ *   Any hashtag whose true count exceeds N / capacity is guaranteed to be a candidate.
+ * Sketches built with the same epsilon, delta and capacity on different ingest nodes can be
+ * serialized with writeTo, read back with readFrom, and combined with merge.
+ */
+
+public class HashtagSketch {
+    private static final int MAGIC = 0x48534B31; // "HSK1": marks a serialized sketch
+
+    private final double epsilon; // Relative error bound of the Count-Min Sketch
+    private final double delta; // Failure probability of the error bound
+    private final int width; // Counters per row
+    private final int depth; // Number of rows (independent hash functions)
+    private final long[] table; // depth * width counters, row-major
+    private final int capacity; // Maximum number of Space-Saving candidates
+    private final Map<String, long[]> candidates = new HashMap<>(); // Candidate -> {count, error}
+    private long total; // Total number of hashtags added
+
+    public HashtagSketch(double epsilon, double delta, int capacity) {
+        if (epsilon <= 0 || epsilon >= 1 || delta <= 0 || delta >= 1 || capacity <= 0) {
+            throw new IllegalArgumentException("epsilon and delta must be in (0, 1) and capacity positive");
+        }
+        this.epsilon = epsilon;
+        this.delta = delta;
+        this.width = (int) Math.ceil(Math.E / epsilon); // Width from the error bound
+        this.depth = (int) Math.ceil(Math.log(1 / delta)); // Depth from the failure probability
+        this.table = new long[width * depth];
+        this.capacity = capacity;
+    }
+
+    // Records one occurrence of the hashtag.
+    public void add(String tag) {
+        long hash = hash64(tag); // Hash the tag once; each row remixes it
+        for (int row = 0; row < depth; row++) {
+            table[row * width + bucket(hash, row)]++; // Increment this row's counter
+        }
+        total++;
+        offer(tag, 1, 0); // Update the heavy-hitter candidates
+    }
+
+    // Returns an upper bound on the number of times the hashtag was added.
+    public long estimate(String tag) {
+        long hash = hash64(tag);
+        long min = Long.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            min = Math.min(min, table[row * width + bucket(hash, row)]); // Smallest counter is the tightest bound
+        }
+        long[] c = candidates.get(tag);
+        return c == null ? min : Math.min(min, c[0]); // Both counts are upper bounds; keep the smaller one
+    }
+
+    // Returns the heavy-hitter candidates with their estimated counts, in the shape
+    // Question4A.printTopHashtags expects.
+    public Map<String, Integer> topCounts() {
+        Map<String, Integer> counts = new HashMap<>();
+        for (String tag : candidates.keySet()) {
+            counts.put(tag, (int) Math.min(Integer.MAX_VALUE, estimate(tag)));
+        }
+        return counts;
+    }
+
+    // Maximum amount by which an estimate exceeds the true count (holds with probability 1 - delta).
+    public long errorBound() {
+        return (long) Math.ceil(epsilon * total);
+    }
+
+    public double getDelta() {
+        return delta;
+    }
+
+    public long getTotal() {
+        return total;
+    }
+
+    // Adds the contents of another sketch built with the same parameters into this one.
+    public void merge(HashtagSketch other) {
+        if (other.width != width || other.depth != depth || other.capacity != capacity) {
+            throw new IllegalArgumentException("Sketches must share epsilon, delta and capacity to be merged");
+        }
+        for (int i = 0; i < table.length; i++) {
+            table[i] += other.table[i]; // Count-Min Sketches merge by adding counters
+        }
+
+        // Space-Saving summaries merge by summing counts; a tag missing from one side may have
+        // been evicted there, so it is charged that side's minimum count as extra error.
+        long thisMin = minCount(), otherMin = other.minCount();
+        Map<String, long[]> merged = new HashMap<>();
+        for (Map.Entry<String, long[]> e : candidates.entrySet()) {
+            long[] o = other.candidates.get(e.getKey());
+            long[] c = e.getValue();
+            merged.put(e.getKey(), o == null
+                    ? new long[] { c[0] + otherMin, c[1] + otherMin }
+                    : new long[] { c[0] + o[0], c[1] + o[1] });
+        }
+        for (Map.Entry<String, long[]> e : other.candidates.entrySet()) {
+            if (!candidates.containsKey(e.getKey())) {
+                long[] o = e.getValue();
+                merged.put(e.getKey(), new long[] { o[0] + thisMin, o[1] + thisMin });
+            }
+        }
+        candidates.clear();
+        merged.entrySet().stream()
+                .sorted((a, b) -> Long.compare(b.getValue()[0], a.getValue()[0])) // Keep the largest counts
+                .limit(capacity)
+                .forEach(e -> candidates.put(e.getKey(), e.getValue()));
+        total += other.total;
+    }
+
+    // Serializes the sketch so it can be shipped to another node and merged there.
+    public void writeTo(DataOutputStream out) throws IOException {
+        out.writeInt(MAGIC);
+        out.writeDouble(epsilon);
+        out.writeDouble(delta);
+        out.writeInt(capacity);
+        out.writeLong(total);
+        for (long counter : table) {
+            out.writeLong(counter);
+        }
+        out.writeInt(candidates.size());
+        for (Map.Entry<String, long[]> e : candidates.entrySet()) {
+            out.writeUTF(e.getKey());
+            out.writeLong(e.getValue()[0]);
+            out.writeLong(e.getValue()[1]);
+        }
+    }
+
+    // Reads a sketch previously written with writeTo.
+    public static HashtagSketch readFrom(DataInputStream in) throws IOException {
+        if (in.readInt() != MAGIC) {
+            throw new IOException("Not a serialized hashtag sketch");
+        }
+        HashtagSketch sketch = new HashtagSketch(in.readDouble(), in.readDouble(), in.readInt());
+        sketch.total = in.readLong();
+        for (int i = 0; i < sketch.table.length; i++) {
+            sketch.table[i] = in.readLong();
+        }
+        int size = in.readInt();
+        for (int i = 0; i < size; i++) {
+            String tag = in.readUTF();
+            sketch.candidates.put(tag, new long[] { in.readLong(), in.readLong() });
+        }
+        return sketch;
+    }
+
+    // Space-Saving update: bump a monitored tag, or replace the smallest candidate when full.
+    // Finding the smallest candidate is a linear scan, which is cheap for the small
+    // capacities used for a top-K dashboard.
+    private void offer(String tag, long count, long error) {
+        long[] c = candidates.get(tag);
+        if (c != null) {
+            c[0] += count;
+            return;
+        }
+        if (candidates.size() < capacity) {
+            candidates.put(tag, new long[] { count, error });
+            return;
+        }
+        String minTag = null;
+        long[] min = null;
+        for (Map.Entry<String, long[]> e : candidates.entrySet()) {
+            if (min == null || e.getValue()[0] < min[0]) {
+                minTag = e.getKey();
+                min = e.getValue();
+            }
+        }
+        candidates.remove(minTag); // Evict the smallest candidate
+        candidates.put(tag, new long[] { min[0] + count, min[0] + error }); // Inherit its count as error
+    }
+
+    // Smallest candidate count, or 0 while the summary still has free slots.
+    private long minCount() {
+        if (candidates.size() < capacity) {
+            return 0;
+        }
+        long min = Long.MAX_VALUE;
+        for (long[] c : candidates.values()) {
+            min = Math.min(min, c[0]);
+        }
+        return min;
+    }
+
+    // Column for the given row: remix the tag hash with a per-row constant.
+    private int bucket(long hash, int row) {
+        long h = hash + (row + 1) * 0x9E3779B97F4A7C15L;
+        h = (h ^ (h >>> 30)) * 0xBF58476D1CE4E5B9L; // SplitMix64 finalizer
+        h = (h ^ (h >>> 27)) * 0x94D049BB133111EBL;
+        h ^= h >>> 31;
+        return (int) Long.remainderUnsigned(h, width);
+    }
+
+    // 64-bit FNV-1a hash of the tag's characters; stable across JVMs so serialized sketches merge.
+    private static long hash64(String s) {
+        long h = 0xCBF29CE484222325L;
+        for (int i = 0; i < s.length(); i++) {
+            h ^= s.charAt(i);
+            h *= 0x100000001B3L;
+        }
+        return h;
+    }
+}
@@ -1,60 +1,156 @@
+import java.time.LocalDate; // Parses tweet_date for the windowed mode
 import java.util.*; // Import necessary Java utilities, including collections like List and Map.
+import java.util.concurrent.ForkJoinPool; // Pool used by the parallel counting mode
+import java.util.concurrent.RecursiveTask; // Base class for the shard counting task
 
 /*
  * Working Mechanism:
- * This program processes a list of tweets (each represented as a map containing user_id, tweet_id, tweet, and tweet_date).
+ * This program processes a batch of tweets (each with a user_id, tweet_id, tweet, and tweet_date).
+ * The tweets are stored column by column in a TweetBatch rather than as one map per tweet.
  * It counts the number of times each hashtag is mentioned across all tweets.
  * Hashtags are identified as words starting with '#' in the tweet text.
  * After counting, the program sorts the hashtags in descending order by count, and if counts are equal,
  * in ascending lexicographical order.
  * Finally, it outputs the top three hashtags in a formatted table.
+ *
+ * Run with "--parallel" to count on a ForkJoinPool: the text arena is split into byte-range shards on
+ * tweet boundaries, each shard counts the pre-interned hashtag ids into its own int[], and the arrays
+ * are summed pairwise; only the top entries are turned back into hashtag strings.
+ * Run with "--approx" to count with a fixed-memory HashtagSketch (Count-Min Sketch plus a
+ * Space-Saving top-K summary); the table then shows estimated counts and their error bound.
+ * Run with "--window N" to rank only the last N days (by tweet_date), or "--window N FROM TO" to
+ * rank an explicit date range; both are answered from per-day buckets in WindowedHashtagCounts.
+ * Run with "--user ID" to count only the tweets of one user (filtered on the user_id column).
  */
 
 public class Question4A { // Define the class Qno4A
     public static void main(String[] args) { // Main method: program entry point
 
-        // Create a list to store tweet data as maps.
-        List<Map<String, String>> tweets = new ArrayList<>(); // Initialize an ArrayList to hold tweets (each as a map)
-
-        // Add sample tweets to the list using the createTweet helper method.
-        tweets.add(
-                createTweet("135", "13", "Enjoying a great start to the day. #HappyDay #MorningVibes", "2024-02-01")); // Add
-                                                                                                                       // first
-                                                                                                                       // tweet
-        tweets.add(createTweet("136", "14", "Another #HappyDay with good vibes! #FeelGood", "2024-02-03")); // Add
-                                                                                                            // second
-                                                                                                            // tweet
-        tweets.add(createTweet("137", "15", "Productivity peaks! #WorkLife #ProductiveDay", "2024-02-04")); // Add third
-                                                                                                            // tweet
-        tweets.add(createTweet("138", "16", "Exploring new tech frontiers. #TechLife #Innovation", "2024-02-04")); // Add
-                                                                                                                   // fourth
-                                                                                                                   // tweet
-        tweets.add(createTweet("139", "17", "Gratitude for today's moments. #HappyDay #Thankful", "2024-02-05")); // Add
-                                                                                                                  // fifth
-                                                                                                                  // tweet
-        tweets.add(createTweet("140", "18", "Innovation drives us. #TechLife #FutureTech", "2024-02-07")); // Add sixth
-                                                                                                           // tweet
-        tweets.add(createTweet("141", "19", "Connecting with nature's serenity. #Nature #Peaceful", "2024-02-09")); // Add
-                                                                                                                    // seventh
-                                                                                                                    // tweet
-
-        // Create a map to store hashtags and their counts.
-        Map<String, Integer> hashtagCounts = new HashMap<>(); // Initialize a HashMap for hashtag counts
+        // Create a columnar batch to store the tweet data.
+        TweetBatch tweets = new TweetBatch(7, 512); // Room for the sample tweets and their text
+
+        // Add sample tweets to the batch using the addTweet helper method.
+        addTweet(tweets, "135", "13", "Enjoying a great start to the day. #HappyDay #MorningVibes", "2024-02-01"); // first
+        addTweet(tweets, "136", "14", "Another #HappyDay with good vibes! #FeelGood", "2024-02-03"); // second tweet
+        addTweet(tweets, "137", "15", "Productivity peaks! #WorkLife #ProductiveDay", "2024-02-04"); // third tweet
+        addTweet(tweets, "138", "16", "Exploring new tech frontiers. #TechLife #Innovation", "2024-02-04"); // fourth
+        addTweet(tweets, "139", "17", "Gratitude for today's moments. #HappyDay #Thankful", "2024-02-05"); // fifth
+        addTweet(tweets, "140", "18", "Innovation drives us. #TechLife #FutureTech", "2024-02-07"); // sixth tweet
+        addTweet(tweets, "141", "19", "Connecting with nature's serenity. #Nature #Peaceful", "2024-02-09"); // seventh
 
-        // Iterate through each tweet in the list.
-        for (Map<String, String> tweet : tweets) { // Loop over every tweet in the tweets list
-            String tweetText = tweet.get("tweet"); // Retrieve the tweet text from the current tweet
-            String[] words = tweetText.split(" "); // Split the tweet text into individual words by spaces
+        // User mode: count only the tweets of one user.
+        if (args.length > 1 && args[0].equals("--user")) {
+            int[] rows = tweets.rowsForUser(Long.parseLong(args[1])); // Filter on the user_id column
+            Map<String, Integer> userCounts = new HashMap<>();
+            tweets.forEachHashtag(rows, (tag, row) -> userCounts.merge(tag, 1, Integer::sum)); // Count their hashtags
+            printTopHashtags(userCounts, 3);
+            return;
+        }
 
-            // Iterate through each word in the tweet.
-            for (String word : words) { // Loop over each word in the tweet text
-                if (word.startsWith("#")) { // Check if the word starts with '#' indicating a hashtag
-                    // Update the count for the hashtag in the map.
-                    hashtagCounts.put(word, hashtagCounts.getOrDefault(word, 0) + 1); // Increment count for the hashtag
+        // Windowed mode: "--window N" ranks the last N days ending at the newest tweet;
+        // "--window N FROM TO" ranks the inclusive date range FROM..TO (yyyy-MM-dd).
+        if (args.length > 1 && args[0].equals("--window")) {
+            int windowDays = Integer.parseInt(args[1]); // Length of the sliding window in days
+            if (args.length > 3) { // Explicit date range
+                long from = LocalDate.parse(args[2]).toEpochDay(); // First day of the range
+                long to = LocalDate.parse(args[3]).toEpochDay(); // Last day of the range
+                if (from > to) {
+                    throw new IllegalArgumentException("FROM must not be after TO");
                 }
+                // Keep every day from the range start (or the oldest tweet, if later) to the newest tweet.
+                from = Math.max(from, tweets.oldestDay());
+                if (from > to) { // The whole range lies before the oldest tweet
+                    printTopHashtags(Collections.emptyMap(), 3); // Nothing to count: empty table
+                    return;
+                }
+                int retentionDays = (int) Math.max(windowDays, tweets.newestDay() - from + 1);
+                WindowedHashtagCounts windowed = windowHashtags(tweets, retentionDays, windowDays);
+                printTopHashtags(windowed.countsBetween(from, to), 3); // Range query over the day buckets
+            } else {
+                WindowedHashtagCounts windowed = windowHashtags(tweets, windowDays, windowDays);
+                printTopHashtags(windowed.windowCounts(), 3); // Running sliding-window totals
+            }
+            return;
+        }
+
+        // Approximate mode: fixed-memory sketch instead of an exact count per hashtag.
+        if (args.length > 0 && args[0].equals("--approx")) {
+            HashtagSketch sketch = sketchHashtags(tweets, 0.001, 0.01, 100); // 0.1% error, 99% confidence, 100 candidates
+            printTopHashtags(sketch.topCounts(), 3); // Same table, estimated counts
+            System.out.printf("Counts may exceed the true value by at most %d (probability >= %.2f)%n",
+                    sketch.errorBound(), 1 - sketch.getDelta()); // Report the error guarantee
+            return;
+        }
+
+        // Count hashtags either on the calling thread or sharded across a ForkJoinPool.
+        // Both paths produce identical counts, so the printed table is the same.
+        Map<String, Integer> hashtagCounts;
+        if (args.length > 0 && args[0].equals("--parallel")) { // Parallel mode requested on the command line
+            int[] idCounts = countHashtagsParallel(tweets, ForkJoinPool.commonPool()); // Shard and count in parallel
+            hashtagCounts = topHashtags(tweets, idCounts, 3); // Only the top entries become strings
+        } else {
+            hashtagCounts = countHashtags(tweets); // Count sequentially
+        }
+
+        printTopHashtags(hashtagCounts, 3); // Output the top 3 hashtags in the table format
+    }
+
+    // Counts every hashtag across all tweets on the calling thread.
+    static Map<String, Integer> countHashtags(TweetBatch tweets) {
+        Map<String, Integer> hashtagCounts = new HashMap<>(); // Initialize a HashMap for hashtag counts
+        tweets.forEachHashtag(0, tweets.size(), (tag, row) -> hashtagCounts.merge(tag, 1, Integer::sum)); // Count
+        return hashtagCounts; // Return the filled map
+    }
+
+    // Feeds every hashtag into a fixed-memory sketch with the given error bounds.
+    static HashtagSketch sketchHashtags(TweetBatch tweets, double epsilon, double delta, int capacity) {
+        HashtagSketch sketch = new HashtagSketch(epsilon, delta, capacity); // Memory is fixed by the parameters
+        tweets.forEachHashtag(0, tweets.size(), (tag, row) -> sketch.add(tag)); // Record every occurrence
+        return sketch;
+    }
+
+    // Feeds every hashtag into per-day buckets keyed on the tweet_date column.
+    static WindowedHashtagCounts windowHashtags(TweetBatch tweets, int retentionDays, int windowDays) {
+        WindowedHashtagCounts windowed = new WindowedHashtagCounts(retentionDays, windowDays);
+        tweets.forEachHashtag(0, tweets.size(), (tag, row) -> windowed.add(tweets.epochDay(row), tag)); // Bucket by day
+        return windowed;
+    }
+
+    // Counts every hashtag across all tweets by splitting the text arena into byte-range
+    // shards on tweet (record) boundaries. Each shard counts hashtag ids into its own int[]
+    // with no shared state, and the arrays are summed pairwise as the fork/join tree unwinds.
+    // Returns the count of each hashtag id (see TweetBatch.hashtag).
+    static int[] countHashtagsParallel(TweetBatch tweets, ForkJoinPool pool) {
+        return pool.invoke(new HashtagCountTask(tweets, 0, tweets.size())); // Run the root task and wait for it
+    }
+
+    // Picks the 'limit' hashtag ids with the highest counts (ties broken by name, as in
+    // printTopHashtags) and returns them as a hashtag -> count map.
+    static Map<String, Integer> topHashtags(TweetBatch tweets, int[] counts, int limit) {
+        Comparator<Integer> worstFirst = (a, b) -> { // Lower count, then later name, is worse
+            int countCompare = Integer.compare(counts[a], counts[b]);
+            return countCompare != 0 ? countCompare : tweets.hashtag(b).compareTo(tweets.hashtag(a));
+        };
+        PriorityQueue<Integer> top = new PriorityQueue<>(worstFirst); // Holds at most 'limit' ids
+        for (int id = 0; id < counts.length; id++) {
+            if (counts[id] == 0) {
+                continue;
             }
+            top.add(id);
+            if (top.size() > limit) {
+                top.poll(); // Drop the worst of the kept ids
+            }
+        }
+        Map<String, Integer> result = new HashMap<>();
+        for (int id : top) {
+            result.put(tweets.hashtag(id), counts[id]);
         }
+        return result;
+    }
 
+    // Prints the top 'limit' hashtags as a table, ordered by count descending and then
+    // by hashtag name ascending.
+    static void printTopHashtags(Map<String, Integer> hashtagCounts, int limit) {
         // Convert the map entries to a list for sorting.
         List<Map.Entry<String, Integer>> sortedHashtags = new ArrayList<>(hashtagCounts.entrySet()); // Create a list
                                                                                                      // from the
@@ -70,15 +166,14 @@ public class Question4A { // Define the class Qno4A
             return a.getKey().compareTo(b.getKey()); // If counts are equal, compare hashtag names lexicographically
         });
 
-        // Output the top 3 hashtags in the redesigned table format.
+        // Output the top hashtags in the redesigned table format.
         // Print the table header.
         System.out.println("+-------------+---------+");
         System.out.println("|   HASHTAG   |  COUNT  |");
         System.out.println("+-------------+---------+");
 
-        // Iterate through the top 3 hashtags (or fewer if there are less than 3).
-        for (int i = 0; i < Math.min(3, sortedHashtags.size()); i++) { // Loop for the top 3 entries or less if not
-                                                                       // enough hashtags
+        // Iterate through the top hashtags (or fewer if there are not enough).
+        for (int i = 0; i < Math.min(limit, sortedHashtags.size()); i++) { // Loop for the top entries
             Map.Entry<String, Integer> entry = sortedHashtags.get(i); // Get the current hashtag entry
             // Print the hashtag and its count in a formatted table row.
             System.out.printf("| %-11s | %-7d |%n", entry.getKey(), entry.getValue()); // Print the formatted row with
@@ -89,15 +184,50 @@ public class Question4A { // Define the class Qno4A
         System.out.println("+-------------+---------+"); // Print bottom border of the table
     }
 
-    // Helper method to create a tweet map.
-    // This method creates and returns a map representing a single tweet.
-    private static Map<String, String> createTweet(String userId, String tweetId, String tweet, String tweetDate) {
-        Map<String, String> tweetMap = new HashMap<>(); // Initialize a new HashMap to hold tweet data
-        tweetMap.put("user_id", userId); // Add the user_id to the map
-        tweetMap.put("tweet_id", tweetId); // Add the tweet_id to the map
-        tweetMap.put("tweet", tweet); // Add the tweet text to the map
-        tweetMap.put("tweet_date", tweetDate); // Add the tweet_date to the map
-        return tweetMap; // Return the created tweet map
+    // Fork/join task that counts one shard of the tweet batch.
+    // Shards holding more than SHARD_BYTES of text are split at the tweet boundary nearest
+    // their byte midpoint; the two halves are counted independently and their arrays summed,
+    // which forms a tree reduction.
+    private static class HashtagCountTask extends RecursiveTask<int[]> {
+        private static final long serialVersionUID = 1L;
+        private static final int SHARD_BYTES = 256 * 1024; // Text bytes per leaf shard
+
+        private final TweetBatch tweets; // Shared, read-only tweet batch
+        private final int from, to; // Shard rows [from, to)
+
+        HashtagCountTask(TweetBatch tweets, int from, int to) {
+            this.tweets = tweets;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected int[] compute() {
+            int startByte = tweets.textOffset(from), endByte = tweets.textOffset(to); // Byte range of this shard
+            int mid = tweets.rowAtOrAfter(startByte + (endByte - startByte) / 2); // Split on a tweet boundary
+            if (endByte - startByte <= SHARD_BYTES || mid <= from || mid >= to) { // Small (or unsplittable)
+                int[] counts = new int[tweets.distinctHashtags()]; // Array owned by this worker only
+                tweets.countHashtagIds(from, to, counts);
+                return counts;
+            }
+            HashtagCountTask left = new HashtagCountTask(tweets, from, mid);
+            left.fork(); // Let another worker pick up the left half
+            int[] merged = new HashtagCountTask(tweets, mid, to).compute(); // Count the right half here
+            int[] other = left.join(); // Wait for the left half
+            for (int id = 0; id < merged.length; id++) { // Sum the two halves
+                merged[id] += other[id];
+            }
+            return merged;
+        }
+    }
+
+    // Helper method to add a tweet to the batch.
+    // The string fields are parsed into the batch's primitive columns.
+    private static void addTweet(TweetBatch tweets, String userId, String tweetId, String tweet, String tweetDate) {
+        tweets.add(Long.parseLong(userId), // user_id column
+                Long.parseLong(tweetId), // tweet_id column
+                (int) LocalDate.parse(tweetDate).toEpochDay(), // tweet_date column as an epoch day
+                tweet); // Tweet text goes into the shared UTF-8 arena
     }
 }
 
@@ -1,121 +1,109 @@
 
 import java.util.*; // Import necessary Java utilities (collections, queues, maps, etc.)
+import java.util.concurrent.ForkJoinPool; // Pool for the parallel per-package searches
+import java.util.concurrent.RecursiveTask; // Base class for the package-range task
 
 /*
  * Working Mechanism:
  * This program calculates the minimum number of roads (or steps) needed to collect all packages.
  * Each package is located at a node (indicated by a 1 in the packages array) in an undirected graph.
- * The graph is represented using an adjacency list built from the provided roads.
+ * The graph is stored in compressed-sparse-row form (RoadGraph) built from the provided roads.
  * 
  * Steps:
- * 1. Build an adjacency list to represent the graph from the roads.
+ * 1. Build a compressed-sparse-row graph (RoadGraph) from the roads.
  * 2. Identify nodes that contain packages.
- * 3. For each package node, precompute its "coverage area" – all nodes reachable within 2 steps (using BFS).
- * 4. For every possible starting node, perform a BFS to determine the minimal distance to reach any node in each package's coverage area.
+ * 3. For each package node, consider its "coverage area" – all nodes reachable within 2 steps (using BFS).
+ * 4. For each package, run one multi-source BFS seeded from its whole coverage area. This gives the minimal
+ *    distance from every possible starting node to that area in a single pass.
  * 5. For each starting node, determine the maximum distance among all package nodes (the "bottleneck").
  * 6. Compute the cost for a starting node as 2 * (that maximum distance) and keep track of the minimum cost.
  * 7. Return the minimum cost if found; otherwise, return -1.
+ * The per-package searches of step 4 are independent, so minRoads splits the package nodes into ranges
+ * on a ForkJoinPool; each range folds its packages into its own bottleneck array, and the arrays are
+ * combined (element-wise maximum) as the tasks join.
+ * minRoadsPerStart keeps the original approach (a BFS from every start to every coverage area) as a
+ * sequential reference implementation.
+ * For many queries on the same roads, build a RoadNetwork once: it caches BFS distances and answers
+ * minRoads(packages, radius) for any collection radius without rerunning the searches.
+ * Large networks can be stored in a compact binary file (RoadNetworkFile) and solved with
+ * "java Question4B network.bin"; the file is memory-mapped and turned into the CSR graph directly.
  */
 
 public class Question4B { // Changed class name to Question4B
 
     // Method to calculate the minimum roads needed to collect all packages.
+    // Uses one multi-source BFS per package: seeding the BFS with the package's whole coverage
+    // area gives, for every node s, the distance from s to the nearest node of that area.
+    // Taking the maximum over packages yields the bottleneck distance of every start at once,
+    // so the total work is O(P * (n + m)) instead of a BFS per (start, package) pair.
     public static int minRoads(int[] packages, int[][] roads) {
-        int n = packages.length; // Total number of nodes in the graph
+        return minRoads(packages, RoadGraph.fromRoads(packages.length, roads)); // Build the CSR graph once
+    }
 
-        // Build the adjacency list for the graph.
-        List<List<Integer>> adj = new ArrayList<>(); // Initialize the adjacency list.
-        for (int i = 0; i < n; i++) { // For each node from 0 to n-1,
-            adj.add(new ArrayList<>()); // add an empty list to hold its neighbors.
-        }
-        for (int[] road : roads) { // For each road (edge) in the roads array,
-            int u = road[0]; // First endpoint of the road.
-            int v = road[1]; // Second endpoint of the road.
-            adj.get(u).add(v); // Add v as a neighbor of u.
-            adj.get(v).add(u); // Add u as a neighbor of v (since the graph is undirected).
-        }
+    // Same as minRoads(int[], int[][]) on an already built CSR graph, using the common pool.
+    public static int minRoads(int[] packages, RoadGraph graph) {
+        return minRoads(packages, graph, ForkJoinPool.commonPool());
+    }
 
-        // Identify all package nodes (nodes where packages[i] == 1).
-        List<Integer> packageNodes = new ArrayList<>();
-        for (int i = 0; i < n; i++) { // Iterate over all nodes.
-            if (packages[i] == 1) { // If a node contains a package,
-                packageNodes.add(i); // add its index to packageNodes.
-            }
+    // Same as minRoads(int[], RoadGraph); the per-package searches run on the given pool.
+    public static int minRoads(int[] packages, RoadGraph graph, ForkJoinPool pool) {
+        int n = packages.length; // Total number of nodes in the graph
+        int packageCount = 0;
+        for (int p = 0; p < n; p++) { // Collect the package nodes
+            packageCount += packages[p] == 1 ? 1 : 0;
         }
-        if (packageNodes.isEmpty()) { // If there are no package nodes,
+        if (packageCount == 0) { // If there are no package nodes,
             return 0; // then no roads are needed.
         }
+        int[] packageNodes = new int[packageCount];
+        for (int p = 0, k = 0; p < n; p++) {
+            if (packages[p] == 1) {
+                packageNodes[k++] = p;
+            }
+        }
 
-        // Precompute coverage areas for each package node: nodes reachable within 2
-        // steps.
-        Map<Integer, Set<Integer>> coverageMap = new HashMap<>();
-        for (int p : packageNodes) { // For each package node p,
-            Set<Integer> coverage = new HashSet<>(); // Create a set to store nodes within 2 steps.
-            Queue<Integer> queue = new LinkedList<>(); // Use a queue for BFS.
-            queue.offer(p); // Start BFS from node p.
-            queue.offer(-1); // Marker (-1) to indicate the end of the current BFS level.
-            int level = 0; // Initialize level counter.
-            while (!queue.isEmpty() && level <= 2) { // Process until queue is empty or level exceeds 2.
-                int node = queue.poll(); // Dequeue a node.
-                if (node == -1) { // If the marker is reached,
-                    level++; // increment the BFS level.
-                    if (!queue.isEmpty()) { // If there are still nodes to process,
-                        queue.offer(-1); // add another marker.
-                    }
-                    continue; // Skip further processing for the marker.
-                }
-                coverage.add(node); // Add the node to the coverage set.
-                for (int neighbor : adj.get(node)) { // For each neighbor of the current node,
-                    if (!coverage.contains(neighbor)) { // if it hasn't been added yet,
-                        queue.offer(neighbor); // enqueue the neighbor.
-                    }
-                }
+        PackageRangeTask all = new PackageRangeTask(graph, packageNodes, 0, packageCount);
+        int[] maxDist = packageCount <= PackageRangeTask.RANGE_SIZE
+                ? all.compute() // A single leaf: not worth a trip through the pool
+                : pool.invoke(all); // Bottleneck distance of each start node (-1 = invalid start)
+
+        int minCost = Integer.MAX_VALUE; // Initialize the minimum cost with a large value.
+        for (int s = 0; s < n; s++) { // Pick the start with the smallest bottleneck distance.
+            if (maxDist[s] != -1) {
+                minCost = Math.min(minCost, 2 * maxDist[s]);
             }
-            coverageMap.put(p, coverage); // Map the package node p to its computed coverage area.
         }
+        return minCost == Integer.MAX_VALUE ? -1 : minCost;
+    }
+
+    // Original approach: a separate BFS from every start node to every package's coverage
+    // area. Kept as the reference implementation that minRoads is checked against.
+    public static int minRoadsPerStart(int[] packages, int[][] roads) {
+        int n = packages.length; // Total number of nodes in the graph
+        RoadGraph graph = RoadGraph.fromRoads(n, roads); // CSR graph shared by every search below
+
+        long[][] coverage = coverageAreas(packages, graph); // One bitset per package node
+        if (coverage.length == 0) { // If there are no package nodes,
+            return 0; // then no roads are needed.
+        }
+        int packageCount = coverage.length;
+        int[] queue = new int[n]; // BFS queue shared by every search
 
         int minCost = Integer.MAX_VALUE; // Initialize the minimum cost with a large value.
+        int[] seen = new int[n]; // Visit stamps: seen[v] == stamp means v was visited in this search
+        int stamp = 0;
 
         // Evaluate each possible starting node (s) in the graph.
         for (int s = 0; s < n; s++) { // For every node s as a potential starting point,
             int maxDist = 0; // To store the maximum distance from s to any package's coverage area.
             boolean valid = true; // Flag to determine if s can reach all package coverage areas.
-            for (int p : packageNodes) { // For each package node,
-                Set<Integer> coverage = coverageMap.get(p); // Retrieve its coverage area.
-
-                // Perform BFS from starting node s to find the minimum distance to any node in
-                // the coverage.
-                Queue<Integer> queue = new LinkedList<>();
-                boolean[] visited = new boolean[n]; // Array to track visited nodes.
-                queue.offer(s); // Enqueue the starting node s.
-                visited[s] = true; // Mark s as visited.
-                int dist = 0; // Initialize the distance counter.
-                boolean found = false; // Flag to indicate if a node in the coverage is reached.
-                while (!queue.isEmpty() && !found) { // Continue BFS until a node in coverage is found or queue empties.
-                    int size = queue.size(); // Number of nodes at the current level.
-                    for (int i = 0; i < size; i++) { // Process all nodes at this level.
-                        int node = queue.poll(); // Dequeue the next node.
-                        if (coverage.contains(node)) { // Check if the node is in the coverage area.
-                            found = true; // Mark as found.
-                            break; // Break out of the loop.
-                        }
-                        // Enqueue all unvisited neighbors.
-                        for (int neighbor : adj.get(node)) {
-                            if (!visited[neighbor]) {
-                                visited[neighbor] = true; // Mark neighbor as visited.
-                                queue.offer(neighbor); // Enqueue the neighbor.
-                            }
-                        }
-                    }
-                    if (!found) { // If no node was found at the current level,
-                        dist++; // increment the distance.
-                    }
-                }
-                if (!found) { // If no node in the coverage was reachable from s,
+            for (int k = 0; k < packageCount; k++) { // For each package node,
+                int d = graph.distanceToSet(s, coverage[k], Integer.MAX_VALUE, queue, seen, ++stamp); // BFS to area
+                if (d == -1) { // If no node in the coverage was reachable from s,
                     valid = false; // mark s as invalid.
                     break; // No need to check further package nodes.
                 }
-                maxDist = Math.max(maxDist, dist); // Update the maximum distance for this starting node.
+                maxDist = Math.max(maxDist, d); // Update the maximum distance for this starting node.
             }
             if (valid) { // If s can reach all package coverage areas,
                 minCost = Math.min(minCost, 2 * maxDist); // Calculate the cost (2 * maxDist) and update the minimum
@@ -127,7 +115,85 @@ public class Question4B { // Changed class name to Question4B
         return minCost == Integer.MAX_VALUE ? -1 : minCost;
     }
 
-    public static void main(String[] args) { // Main method: program entry point.
+    // Computes the 2-step coverage area of every package node as a bitset over all nodes.
+    private static long[][] coverageAreas(int[] packages, RoadGraph graph) {
+        int n = packages.length;
+        int packageCount = 0;
+        for (int i = 0; i < n; i++) { // Count the nodes that contain a package.
+            packageCount += packages[i] == 1 ? 1 : 0;
+        }
+        int[] queue = new int[n]; // Scratch for the coverage BFS
+        int[] dist = new int[n];
+        Arrays.fill(dist, -1);
+        long[][] coverage = new long[packageCount][];
+        for (int i = 0, k = 0; i < n; i++) {
+            if (packages[i] == 1) {
+                coverage[k] = new long[(n + 63) >>> 6]; // One bit per node
+                graph.markBall(i, 2, coverage[k++], queue, dist); // Nodes reachable within 2 steps
+            }
+        }
+        return coverage;
+    }
+
+    // Folds the packages packageNodes[from, to) into a bottleneck array: entry s is the largest
+    // distance from s to the 2-step coverage area of any of these packages, or -1 if s cannot
+    // reach one of them. Ranges with more than RANGE_SIZE packages are split in half.
+    private static class PackageRangeTask extends RecursiveTask<int[]> {
+        private static final long serialVersionUID = 1L;
+        static final int RANGE_SIZE = 8; // Packages per leaf task (one BFS over the graph each)
+
+        private final RoadGraph graph; // Shared, read-only CSR graph
+        private final int[] packageNodes;
+        private final int from, to;
+
+        PackageRangeTask(RoadGraph graph, int[] packageNodes, int from, int to) {
+            this.graph = graph;
+            this.packageNodes = packageNodes;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected int[] compute() {
+            if (to - from > RANGE_SIZE) { // Too many packages: split in half
+                int mid = (from + to) >>> 1;
+                PackageRangeTask left = new PackageRangeTask(graph, packageNodes, from, mid);
+                left.fork(); // Let another worker pick up the left half
+                int[] maxDist = new PackageRangeTask(graph, packageNodes, mid, to).compute();
+                int[] other = left.join();
+                for (int s = 0; s < maxDist.length; s++) { // A start is only as good as its worse half
+                    maxDist[s] = maxDist[s] == -1 || other[s] == -1 ? -1 : Math.max(maxDist[s], other[s]);
+                }
+                return maxDist;
+            }
+            int n = graph.n;
+            int[] maxDist = new int[n]; // Bottleneck distance of each start node so far (-1 = invalid start)
+            int[] dist = new int[n]; // Distance to the current package's coverage area (-1 = unreached)
+            int[] queue = new int[n]; // BFS queue shared by this leaf's searches
+            for (int k = from; k < to; k++) { // For each package node p,
+                graph.distanceToBall(packageNodes[k], 2, queue, dist); // One multi-source BFS from p's coverage area
+
+                // Fold this package into each start node's bottleneck distance.
+                for (int s = 0; s < n; s++) {
+                    if (maxDist[s] == -1 || dist[s] == -1) {
+                        maxDist[s] = -1; // s cannot reach every package's coverage area
+                    } else if (dist[s] > maxDist[s]) {
+                        maxDist[s] = dist[s];
+                    }
+                }
+            }
+            return maxDist;
+        }
+    }
+
+    public static void main(String[] args) throws java.io.IOException { // Main method: program entry point.
+        // Optional: solve a road network stored in the binary format (see RoadNetworkFile).
+        if (args.length > 0) {
+            RoadNetworkFile file = RoadNetworkFile.load(java.nio.file.Paths.get(args[0])); // Memory-mapped load
+            System.out.println(minRoads(file.getPackages(), file.getGraph())); // Solve the loaded network
+            return;
+        }
+
         // First example:
         int[] packages1 = { 1, 0, 0, 0, 0, 1 }; // packages array: nodes with a value 1 have a package.
         int[][] roads1 = { { 1, 0 }, { 1, 1 }, { 2, 1 }, { 2, 3 }, { 3, 4 }, { 4, 5 } }; // Roads represented as pairs
@@ -0,0 +1,136 @@
+import java.util.Arrays; // Array fill/copy helpers
+
+/*
+ * Working Mechanism:
+ * Compressed-sparse-row (CSR) form of the undirected road network used by Question4B.
+ * - The neighbors of node u are targets[offsets[u]] .. targets[offsets[u + 1] - 1].
+ * - It is built with two counting passes over the roads: the first counts each node's degree,
+ *   the second writes every neighbor into its slot. No boxed Integers or per-node lists are created.
+ * - BFS helpers take caller-owned scratch arrays (queue, distances or visit stamps) so repeated
+ *   searches do not allocate. Each node is enqueued at most once per search, so an int[n]
+ *   queue with head/tail indices is enough and BFS levels are tracked by index, not by markers.
+ */
+
+public class RoadGraph {
+    final int n; // Number of nodes
+    final int[] offsets; // offsets[u]..offsets[u + 1] is u's slice of targets
+    final int[] targets; // Neighbor lists of all nodes, back to back
+
+    RoadGraph(int n, int[] offsets, int[] targets) {
+        this.n = n;
+        this.offsets = offsets;
+        this.targets = targets;
+    }
+
+    // Builds the CSR graph from (u, v) road pairs; every road is stored in both directions.
+    public static RoadGraph fromRoads(int n, int[][] roads) {
+        int[] offsets = new int[n + 1];
+        for (int[] road : roads) { // Pass 1: count degrees
+            offsets[road[0] + 1]++;
+            offsets[road[1] + 1]++;
+        }
+        for (int u = 0; u < n; u++) { // Prefix sums turn degrees into slice starts
+            offsets[u + 1] += offsets[u];
+        }
+        int[] targets = new int[offsets[n]];
+        int[] next = Arrays.copyOf(offsets, n); // Next free slot of each node
+        for (int[] road : roads) { // Pass 2: fill neighbor slots
+            targets[next[road[0]]++] = road[1];
+            targets[next[road[1]]++] = road[0];
+        }
+        return new RoadGraph(n, offsets, targets);
+    }
+
+    public int nodeCount() {
+        return n;
+    }
+
+    // Marks every node within 'radius' steps of source in the bitset 'ball'.
+    // dist must be all -1 on entry and is restored to all -1 before returning.
+    void markBall(int source, int radius, long[] ball, int[] queue, int[] dist) {
+        int head = 0, tail = 0;
+        dist[source] = 0;
+        queue[tail++] = source;
+        while (head < tail) {
+            int node = queue[head++];
+            ball[node >>> 6] |= 1L << node; // Set the node's bit
+            if (dist[node] == radius) {
+                continue; // Do not expand past the radius
+            }
+            for (int i = offsets[node]; i < offsets[node + 1]; i++) {
+                int neighbor = targets[i];
+                if (dist[neighbor] == -1) {
+                    dist[neighbor] = dist[node] + 1;
+                    queue[tail++] = neighbor;
+                }
+            }
+        }
+        for (int i = 0; i < tail; i++) {
+            dist[queue[i]] = -1; // Undo only the entries this search touched
+        }
+    }
+
+    // Multi-source BFS: fills dist with each node's distance to the nearest node within
+    // 'radius' steps of source (0 inside that ball, -1 if unreachable).
+    // dist is overwritten entirely; queue must have room for n entries.
+    void distanceToBall(int source, int radius, int[] queue, int[] dist) {
+        Arrays.fill(dist, -1);
+        int head = 0, tail = 0;
+        dist[source] = 0;
+        queue[tail++] = source;
+        for (int level = 0; level < radius; level++) { // Grow the ball ring by ring; all of it is at distance 0
+            int levelEnd = tail;
+            while (head < levelEnd) {
+                int node = queue[head++];
+                for (int i = offsets[node]; i < offsets[node + 1]; i++) {
+                    int neighbor = targets[i];
+                    if (dist[neighbor] == -1) {
+                        dist[neighbor] = 0;
+                        queue[tail++] = neighbor;
+                    }
+                }
+            }
+        }
+        head = 0; // Expand outward from every seed together
+        while (head < tail) {
+            int node = queue[head++];
+            for (int i = offsets[node]; i < offsets[node + 1]; i++) {
+                int neighbor = targets[i];
+                if (dist[neighbor] == -1) {
+                    dist[neighbor] = dist[node] + 1;
+                    queue[tail++] = neighbor;
+                }
+            }
+        }
+    }
+
+    // BFS from start until it reaches a node whose bit is set in 'target'. Returns the number
+    // of steps, or -1 if no such node is reachable within maxSteps. Visits are recorded as
+    // seen[v] == stamp, so the caller passes a fresh stamp per search instead of clearing the array.
+    int distanceToSet(int start, long[] target, int maxSteps, int[] queue, int[] seen, int stamp) {
+        int head = 0, tail = 0;
+        seen[start] = stamp;
+        queue[tail++] = start;
+        int dist = 0;
+        while (head < tail) {
+            int levelEnd = tail; // Nodes before levelEnd are at distance 'dist'
+            while (head < levelEnd) {
+                int node = queue[head++];
+                if ((target[node >>> 6] & (1L << node)) != 0) {
+                    return dist; // Reached the target set
+                }
+                for (int i = offsets[node]; i < offsets[node + 1]; i++) {
+                    int neighbor = targets[i];
+                    if (seen[neighbor] != stamp) {
+                        seen[neighbor] = stamp;
+                        queue[tail++] = neighbor;
+                    }
+                }
+            }
+            if (++dist > maxSteps) {
+                return -1; // Give up: the caller has no use for a longer distance
+            }
+        }
+        return -1;
+    }
+}
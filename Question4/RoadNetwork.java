@@ -0,0 +1,154 @@
+import java.util.Arrays; // Array fill helper
+import java.util.LinkedHashMap; // Access-ordered map used as an LRU cache of distance rows
+import java.util.Map;
+
+/*
+ * Working Mechanism:
+ * A road network that is built once and then answers many Question4B queries.
+ * - The graph is kept in CSR form (RoadGraph).
+ * - Distances come from a distance oracle made of BFS rows: row u holds the distance from u to
+ *   every node. On small graphs (up to ALL_PAIRS_LIMIT nodes) every row is computed up front
+ *   (all-pairs BFS). On larger graphs rows are computed on first use and kept in an LRU cache
+ *   of at most maxCachedRows rows, so repeated queries over the same package nodes reuse them.
+ * - In an unweighted undirected graph, the distance from s to the set of nodes within r steps
+ *   of p is max(0, dist(s, p) - r). So minRoads(packages, radius) only needs the row of each
+ *   package node, whatever the radius, and never runs a BFS from a start node.
+ * - When a query has more package nodes than the row cache holds, caching would evict rows on
+ *   every query; such queries instead run one multi-source BFS per package from its coverage
+ *   area (as Question4B.minRoads does) and leave the cache alone.
+ * Not thread-safe: use one RoadNetwork per thread, or synchronize queries externally.
+ */
+
+public class RoadNetwork {
+    static final int ALL_PAIRS_LIMIT = 2048; // Largest graph whose rows are all precomputed
+
+    private final RoadGraph graph; // CSR road network
+    private final int[][] allPairs; // Every row, for small graphs; null otherwise
+    private final Map<Integer, int[]> rowCache; // LRU cache of rows, for large graphs; null otherwise
+    private final int maxCachedRows; // Capacity of rowCache
+    private final int[] queue; // BFS scratch queue
+
+    public RoadNetwork(int n, int[][] roads) {
+        this(RoadGraph.fromRoads(n, roads), 256);
+    }
+
+    // maxCachedRows bounds the memory used by the row cache on large graphs (n ints per row).
+    public RoadNetwork(RoadGraph graph, int maxCachedRows) {
+        if (maxCachedRows <= 0) {
+            throw new IllegalArgumentException("maxCachedRows must be positive");
+        }
+        this.graph = graph;
+        this.maxCachedRows = maxCachedRows;
+        this.queue = new int[graph.n];
+        if (graph.n <= ALL_PAIRS_LIMIT) {
+            allPairs = new int[graph.n][];
+            for (int u = 0; u < graph.n; u++) {
+                allPairs[u] = bfsRow(u); // All-pairs BFS up front
+            }
+            rowCache = null;
+        } else {
+            allPairs = null;
+            rowCache = new LinkedHashMap<Integer, int[]>(16, 0.75f, true) { // Access order = LRU
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Integer, int[]> eldest) {
+                    return size() > maxCachedRows; // Evict the least recently used row
+                }
+            };
+        }
+    }
+
+    public RoadGraph getGraph() {
+        return graph;
+    }
+
+    // Number of roads on a shortest route from u to v, or -1 if v is unreachable.
+    public int distance(int u, int v) {
+        return row(u)[v];
+    }
+
+    // Minimum roads needed to collect every package (packages[i] == 1) when a package can be
+    // collected from up to 'radius' steps away. Same result as Question4B.minRoads for radius 2.
+    public int minRoads(int[] packages, int radius) {
+        int n = graph.n;
+        if (packages.length != n) {
+            throw new IllegalArgumentException("packages has " + packages.length + " entries for " + n + " nodes");
+        }
+        if (radius < 0) {
+            throw new IllegalArgumentException("radius must not be negative");
+        }
+        int packageCount = 0;
+        for (int p = 0; p < n; p++) {
+            packageCount += packages[p] == 1 ? 1 : 0;
+        }
+        if (packageCount == 0) {
+            return 0; // No packages: no roads needed
+        }
+        boolean useRows = allPairs != null || packageCount <= maxCachedRows; // Otherwise the LRU would thrash
+        int[] toArea = useRows ? null : new int[n]; // Distance to one coverage area, when not using rows
+        int[] maxDist = new int[n]; // Bottleneck distance of each start node (-1 = invalid start)
+        for (int p = 0; p < n; p++) {
+            if (packages[p] != 1) {
+                continue;
+            }
+            if (useRows) {
+                int[] fromP = row(p); // Distances from the package node (symmetric graph)
+                for (int s = 0; s < n; s++) {
+                    if (maxDist[s] == -1 || fromP[s] == -1) {
+                        maxDist[s] = -1; // s cannot reach this package's coverage area
+                    } else {
+                        maxDist[s] = Math.max(maxDist[s], Math.max(0, fromP[s] - radius)); // Distance to the area
+                    }
+                }
+            } else {
+                graph.distanceToBall(p, radius, queue, toArea); // Multi-source BFS from the coverage area
+                for (int s = 0; s < n; s++) {
+                    if (maxDist[s] == -1 || toArea[s] == -1) {
+                        maxDist[s] = -1;
+                    } else {
+                        maxDist[s] = Math.max(maxDist[s], toArea[s]);
+                    }
+                }
+            }
+        }
+        int best = Integer.MAX_VALUE;
+        for (int s = 0; s < n; s++) {
+            if (maxDist[s] != -1) {
+                best = Math.min(best, maxDist[s]);
+            }
+        }
+        return best == Integer.MAX_VALUE ? -1 : 2 * best;
+    }
+
+    // Distance row of u from the oracle, computing and caching it if needed.
+    private int[] row(int u) {
+        if (allPairs != null) {
+            return allPairs[u];
+        }
+        int[] row = rowCache.get(u);
+        if (row == null) {
+            row = bfsRow(u);
+            rowCache.put(u, row);
+        }
+        return row;
+    }
+
+    // Plain BFS from source over the CSR graph.
+    private int[] bfsRow(int source) {
+        int[] dist = new int[graph.n];
+        Arrays.fill(dist, -1);
+        int head = 0, tail = 0;
+        dist[source] = 0;
+        queue[tail++] = source;
+        while (head < tail) {
+            int node = queue[head++];
+            for (int i = graph.offsets[node]; i < graph.offsets[node + 1]; i++) {
+                int neighbor = graph.targets[i];
+                if (dist[neighbor] == -1) {
+                    dist[neighbor] = dist[node] + 1;
+                    queue[tail++] = neighbor;
+                }
+            }
+        }
+        return dist;
+    }
+}
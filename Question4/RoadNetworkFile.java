@@ -0,0 +1,157 @@
+import java.io.IOException; // Reported for unreadable or malformed files
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/*
+ * Working Mechanism:
+ * Compact binary format for Question4B road networks, loaded through a memory map.
+ * File layout (little-endian):
+ *   int  magic      'Q4RN'
+ *   int  version    1
+ *   int  n          number of nodes
+ *   long m          number of roads
+ *   m x (int u, int v)          the roads
+ *   ceil(n / 8) bytes           package bitmap: bit (i % 8) of byte (i / 8) is set if node i has a package
+ * load() maps the road section and builds the CSR graph with two counting passes straight over
+ * the mapped ints (degrees first, then neighbor slots), without creating an int[] per road.
+ * The road section is mapped in chunks so files larger than 2 GB also load, and each chunk is read
+ * with bulk copies into a small reusable int[] window.
+ */
+
+public class RoadNetworkFile {
+    private static final int MAGIC = 0x4E523451; // "Q4RN" read as a little-endian int
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 20; // magic + version + n + m
+    private static final long CHUNK_BYTES = 1L << 30; // Mapped region size (a multiple of 8 bytes)
+    private static final int WINDOW_INTS = 1 << 14; // Ints copied out of the map per bulk read (even)
+
+    private final RoadGraph graph; // Loaded road network
+    private final int[] packages; // packages[i] == 1 if node i has a package
+
+    private RoadNetworkFile(RoadGraph graph, int[] packages) {
+        this.graph = graph;
+        this.packages = packages;
+    }
+
+    public RoadGraph getGraph() {
+        return graph;
+    }
+
+    public int[] getPackages() {
+        return packages;
+    }
+
+    // Writes packages and roads in the binary format.
+    public static void write(Path file, int[] packages, int[][] roads) throws IOException {
+        int n = packages.length;
+        try (FileChannel out = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buf = ByteBuffer.allocateDirect(1 << 16).order(ByteOrder.LITTLE_ENDIAN);
+            buf.putInt(MAGIC).putInt(VERSION).putInt(n).putLong(roads.length);
+            for (int[] road : roads) {
+                if (buf.remaining() < 8) {
+                    drain(out, buf);
+                }
+                buf.putInt(road[0]).putInt(road[1]);
+            }
+            byte[] bitmap = new byte[(n + 7) >>> 3];
+            for (int i = 0; i < n; i++) {
+                if (packages[i] == 1) {
+                    bitmap[i >>> 3] |= (byte) (1 << (i & 7));
+                }
+            }
+            for (byte b : bitmap) {
+                if (!buf.hasRemaining()) {
+                    drain(out, buf);
+                }
+                buf.put(b);
+            }
+            drain(out, buf);
+        }
+    }
+
+    // Maps the file and builds the CSR graph and package flags from it.
+    public static RoadNetworkFile load(Path file) throws IOException {
+        try (FileChannel in = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer header = in.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            if (header.getInt() != MAGIC || header.getInt() != VERSION) {
+                throw new IOException("Not a road network file: " + file);
+            }
+            int n = header.getInt();
+            long m = header.getLong();
+            long roadBytes = m * 8;
+            long bitmapBytes = (n + 7L) >>> 3;
+            if (n < 0 || m < 0 || in.size() != HEADER_BYTES + roadBytes + bitmapBytes) {
+                throw new IOException("Truncated or corrupt road network file: " + file);
+            }
+            if (2 * m > Integer.MAX_VALUE - 8) {
+                throw new IOException("Too many roads for an int-indexed graph: " + m);
+            }
+
+            // Pass 1: count degrees.
+            int[] offsets = new int[n + 1];
+            int[] window = new int[WINDOW_INTS]; // Mapped ints are copied out in bulk, a window at a time
+            for (long pos = 0; pos < roadBytes; pos += CHUNK_BYTES) {
+                IntBuffer ints = mapInts(in, HEADER_BYTES + pos, Math.min(CHUNK_BYTES, roadBytes - pos));
+                while (ints.hasRemaining()) {
+                    int count = Math.min(window.length, ints.remaining());
+                    ints.get(window, 0, count);
+                    for (int i = 0; i < count; i++) {
+                        int node = window[i];
+                        if (node < 0 || node >= n) {
+                            throw new IOException("Road endpoint " + node + " out of range in " + file);
+                        }
+                        offsets[node + 1]++;
+                    }
+                }
+            }
+            for (int u = 0; u < n; u++) { // Prefix sums turn degrees into slice starts
+                offsets[u + 1] += offsets[u];
+            }
+
+            // Pass 2: write each road into both endpoints' neighbor slots.
+            int[] targets = new int[offsets[n]];
+            int[] next = Arrays.copyOf(offsets, n);
+            for (long pos = 0; pos < roadBytes; pos += CHUNK_BYTES) {
+                IntBuffer ints = mapInts(in, HEADER_BYTES + pos, Math.min(CHUNK_BYTES, roadBytes - pos));
+                while (ints.hasRemaining()) {
+                    int count = Math.min(window.length, ints.remaining()); // Even: windows hold whole roads
+                    ints.get(window, 0, count);
+                    for (int i = 0; i < count; i += 2) {
+                        int u = window[i], v = window[i + 1];
+                        targets[next[u]++] = v;
+                        targets[next[v]++] = u;
+                    }
+                }
+            }
+
+            // Package flags from the mapped bitmap.
+            int[] packages = new int[n];
+            if (bitmapBytes > 0) {
+                MappedByteBuffer bitmap = in.map(FileChannel.MapMode.READ_ONLY, HEADER_BYTES + roadBytes, bitmapBytes);
+                for (int i = 0; i < n; i++) {
+                    packages[i] = (bitmap.get(i >>> 3) >>> (i & 7)) & 1;
+                }
+            }
+            return new RoadNetworkFile(new RoadGraph(n, offsets, targets), packages);
+        }
+    }
+
+    private static IntBuffer mapInts(FileChannel in, long position, long size) throws IOException {
+        return in.map(FileChannel.MapMode.READ_ONLY, position, size).order(ByteOrder.LITTLE_ENDIAN).asIntBuffer();
+    }
+
+    private static void drain(FileChannel out, ByteBuffer buf) throws IOException {
+        buf.flip();
+        while (buf.hasRemaining()) {
+            out.write(buf);
+        }
+        buf.clear();
+    }
+}
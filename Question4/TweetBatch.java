@@ -0,0 +1,272 @@
+import java.nio.charset.StandardCharsets; // Tweet text is stored as UTF-8
+import java.util.Arrays; // Array growth helpers
+import java.util.function.ObjIntConsumer; // Callback for extracted hashtags
+
+/*
+ * Working Mechanism:
+ * Stores tweets column by column instead of one HashMap per tweet:
+ * - userIds / tweetIds are long[] columns and epochDays is an int[] column (LocalDate.toEpochDay()).
+ * - All tweet texts are concatenated as UTF-8 into one shared byte[] arena; textStart[i] is where
+ *   tweet i begins and textStart[i + 1] where it ends.
+ * Hashtag extraction scans the arena bytes directly. Words are separated by single spaces and a
+ * hashtag is a word starting with '#', exactly like tweet.split(" ") + startsWith("#"). Both
+ * characters are ASCII, so scanning bytes never splits a multi-byte UTF-8 character.
+ * - The scan runs once, in add(). Each distinct hashtag is looked up by its bytes in an
+ *   open-addressing table and decoded to a String only the first time it is seen; the tweet's
+ *   hashtags are stored as ids in a tagIds column (tagStart[i]..tagStart[i + 1] for tweet i).
+ * - forEachHashtag therefore hands out the same String instance for every occurrence of a tag:
+ *   no decoding or allocation per occurrence, and its hash code is computed only once.
+ * Row filters (by user or by date) scan only the relevant column and return matching row numbers.
+ */
+
+public class TweetBatch {
+    private long[] userIds; // user_id column
+    private long[] tweetIds; // tweet_id column
+    private int[] epochDays; // tweet_date column, as days since 1970-01-01
+    private int[] textStart; // Offsets into the arena; textStart[size] is the end of the last tweet
+    private byte[] text; // Shared UTF-8 arena holding every tweet text
+    private int size; // Number of tweets stored
+
+    private int[] tagIds; // Hashtag occurrences, in tweet order, as ids into tagNames
+    private int[] tagStart; // Offsets into tagIds; tagStart[size] is the number of occurrences
+    private String[] tagNames; // Decoded text of each distinct hashtag
+    private int[] tagOffset; // Where each distinct hashtag's bytes first appear in the arena
+    private int[] tagLength; // Byte length of each distinct hashtag
+    private int[] tagTable; // Open-addressing table of id + 1 (0 = empty), a power of two long
+    private int distinctTags; // Number of distinct hashtags
+
+    public TweetBatch(int expectedTweets, int expectedTextBytes) {
+        int rows = Math.max(expectedTweets, 1);
+        userIds = new long[rows];
+        tweetIds = new long[rows];
+        epochDays = new int[rows];
+        textStart = new int[rows + 1];
+        text = new byte[Math.max(expectedTextBytes, 16)];
+        tagIds = new int[rows * 2];
+        tagStart = new int[rows + 1];
+        tagNames = new String[16];
+        tagOffset = new int[16];
+        tagLength = new int[16];
+        tagTable = new int[32];
+    }
+
+    // Appends one tweet; returns its row number.
+    public int add(long userId, long tweetId, int epochDay, String tweet) {
+        if (size == userIds.length) { // Grow every column together
+            int capacity = size * 2;
+            userIds = Arrays.copyOf(userIds, capacity);
+            tweetIds = Arrays.copyOf(tweetIds, capacity);
+            epochDays = Arrays.copyOf(epochDays, capacity);
+            textStart = Arrays.copyOf(textStart, capacity + 1);
+            tagStart = Arrays.copyOf(tagStart, capacity + 1);
+        }
+        byte[] bytes = tweet.getBytes(StandardCharsets.UTF_8);
+        int start = textStart[size];
+        if (start + bytes.length > text.length) { // Grow the arena
+            text = Arrays.copyOf(text, Math.max(text.length * 2, start + bytes.length));
+        }
+        System.arraycopy(bytes, 0, text, start, bytes.length);
+        userIds[size] = userId;
+        tweetIds[size] = tweetId;
+        epochDays[size] = epochDay;
+        textStart[size + 1] = start + bytes.length; // End of this tweet is the start of the next
+        tagStart[size + 1] = tagStart[size];
+        extractHashtags(size); // Fills tagIds and advances tagStart[size + 1]
+        return size++;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public long userId(int row) {
+        return userIds[row];
+    }
+
+    public long tweetId(int row) {
+        return tweetIds[row];
+    }
+
+    public int epochDay(int row) {
+        return epochDays[row];
+    }
+
+    // Earliest tweet_date in the batch (epoch day); 0 if the batch is empty.
+    public int oldestDay() {
+        int oldest = size == 0 ? 0 : epochDays[0];
+        for (int row = 1; row < size; row++) {
+            oldest = Math.min(oldest, epochDays[row]);
+        }
+        return oldest;
+    }
+
+    // Latest tweet_date in the batch (epoch day); 0 if the batch is empty.
+    public int newestDay() {
+        int newest = size == 0 ? 0 : epochDays[0];
+        for (int row = 1; row < size; row++) {
+            newest = Math.max(newest, epochDays[row]);
+        }
+        return newest;
+    }
+
+    // Decodes the text of one tweet (allocates; the hot paths below work on the bytes).
+    public String tweet(int row) {
+        return new String(text, textStart[row], textStart[row + 1] - textStart[row], StandardCharsets.UTF_8);
+    }
+
+    // Byte offset in the arena where the given row starts; textOffset(size()) is the end of the data.
+    public int textOffset(int row) {
+        return textStart[row];
+    }
+
+    // First row whose text starts at or after the given byte offset. Used to cut byte ranges
+    // into shards on record boundaries.
+    public int rowAtOrAfter(int byteOffset) {
+        int pos = Arrays.binarySearch(textStart, 0, size + 1, byteOffset);
+        if (pos < 0) {
+            return -pos - 1; // Insertion point is the next record boundary
+        }
+        while (pos > 0 && textStart[pos - 1] == byteOffset) {
+            pos--; // Empty tweets share an offset; take the first of them
+        }
+        return pos;
+    }
+
+    // Calls visitor.accept(hashtag, row) for every hashtag in rows [from, to).
+    public void forEachHashtag(int from, int to, ObjIntConsumer<String> visitor) {
+        for (int row = from; row < to; row++) {
+            forEachHashtag(row, visitor);
+        }
+    }
+
+    // Calls visitor.accept(hashtag, row) for every hashtag of the listed rows.
+    public void forEachHashtag(int[] rows, ObjIntConsumer<String> visitor) {
+        for (int row : rows) {
+            forEachHashtag(row, visitor);
+        }
+    }
+
+    // Returns the rows written by the given user.
+    public int[] rowsForUser(long userId) {
+        int[] rows = new int[size];
+        int count = 0;
+        for (int row = 0; row < size; row++) {
+            if (userIds[row] == userId) {
+                rows[count++] = row;
+            }
+        }
+        return Arrays.copyOf(rows, count);
+    }
+
+    // Returns the rows dated between fromDay and toDay (inclusive, epoch days).
+    public int[] rowsBetweenDays(int fromDay, int toDay) {
+        int[] rows = new int[size];
+        int count = 0;
+        for (int row = 0; row < size; row++) {
+            if (epochDays[row] >= fromDay && epochDays[row] <= toDay) {
+                rows[count++] = row;
+            }
+        }
+        return Arrays.copyOf(rows, count);
+    }
+
+    // Number of distinct hashtags across the batch; hashtag ids run from 0 to this value - 1.
+    public int distinctHashtags() {
+        return distinctTags;
+    }
+
+    // Text of the hashtag with the given id.
+    public String hashtag(int id) {
+        return tagNames[id];
+    }
+
+    // Adds one to counts[id] for every hashtag occurrence in rows [from, to); counts must have
+    // room for distinctHashtags() ids. No String is touched, so nothing is hashed or boxed.
+    public void countHashtagIds(int from, int to, int[] counts) {
+        for (int i = tagStart[from]; i < tagStart[to]; i++) {
+            counts[tagIds[i]]++;
+        }
+    }
+
+    // Hands out the interned hashtags of one tweet.
+    private void forEachHashtag(int row, ObjIntConsumer<String> visitor) {
+        for (int i = tagStart[row]; i < tagStart[row + 1]; i++) {
+            visitor.accept(tagNames[tagIds[i]], row);
+        }
+    }
+
+    // Scans one tweet's bytes for space-separated words starting with '#' and records their ids.
+    private void extractHashtags(int row) {
+        int end = textStart[row + 1];
+        int wordStart = textStart[row];
+        for (int i = wordStart; i <= end; i++) {
+            if (i == end || text[i] == ' ') { // End of a word
+                if (i > wordStart && text[wordStart] == '#') {
+                    int count = tagStart[row + 1];
+                    if (count == tagIds.length) {
+                        tagIds = Arrays.copyOf(tagIds, count * 2);
+                    }
+                    tagIds[count] = internTag(wordStart, i - wordStart);
+                    tagStart[row + 1] = count + 1;
+                }
+                wordStart = i + 1; // Next word starts after the space
+            }
+        }
+    }
+
+    // Id of the hashtag stored at text[offset, offset + length), adding it if it is new.
+    private int internTag(int offset, int length) {
+        int hash = tagHash(offset, length);
+        int mask = tagTable.length - 1;
+        for (int slot = hash & mask;; slot = (slot + 1) & mask) { // Linear probing
+            int id = tagTable[slot] - 1;
+            if (id < 0) { // Empty slot: first occurrence of this tag
+                break;
+            }
+            if (tagLength[id] == length && Arrays.equals(text, tagOffset[id], tagOffset[id] + length,
+                    text, offset, offset + length)) {
+                return id;
+            }
+        }
+        if (distinctTags == tagNames.length) {
+            tagNames = Arrays.copyOf(tagNames, distinctTags * 2);
+            tagOffset = Arrays.copyOf(tagOffset, distinctTags * 2);
+            tagLength = Arrays.copyOf(tagLength, distinctTags * 2);
+        }
+        int id = distinctTags++;
+        tagNames[id] = new String(text, offset, length, StandardCharsets.UTF_8); // Decoded once per distinct tag
+        tagOffset[id] = offset;
+        tagLength[id] = length;
+        if (distinctTags * 2 > tagTable.length) {
+            rehashTags(tagTable.length * 2); // Keep the table at most half full
+        } else {
+            insertTag(hash, id);
+        }
+        return id;
+    }
+
+    private void insertTag(int hash, int id) {
+        int mask = tagTable.length - 1;
+        int slot = hash & mask;
+        while (tagTable[slot] != 0) {
+            slot = (slot + 1) & mask;
+        }
+        tagTable[slot] = id + 1;
+    }
+
+    private void rehashTags(int capacity) {
+        tagTable = new int[capacity];
+        for (int id = 0; id < distinctTags; id++) {
+            insertTag(tagHash(tagOffset[id], tagLength[id]), id);
+        }
+    }
+
+    // FNV-1a over the hashtag's bytes.
+    private int tagHash(int offset, int length) {
+        int hash = 0x811c9dc5;
+        for (int i = offset; i < offset + length; i++) {
+            hash = (hash ^ text[i]) * 0x01000193;
+        }
+        return hash;
+    }
+}
@@ -0,0 +1,131 @@
+import java.util.*; // Maps used for the per-day buckets
+
+/*
+ * Working Mechanism:
+ * Keeps hashtag counts per day so Question4A can answer time-windowed queries.
+ * - A ring buffer holds one count map per day for the most recent 'retentionDays' days.
+ *   Day d lives in slot d % retentionDays; when the newest day moves forward, slots holding
+ *   days that fell out of retention are cleared and reused.
+ * - A running total covers the sliding window of the last 'windowDays' days. When the newest
+ *   day advances, each day that leaves the window has its bucket subtracted from the total,
+ *   so the window is never recounted from scratch.
+ * - countsBetween(d1, d2) sums the buckets for days d1..d2, so per-day (tumbling) and
+ *   arbitrary-range queries never rescan the raw tweets.
+ * Days are epoch days (LocalDate.toEpochDay()).
+ */
+
+public class WindowedHashtagCounts {
+    private final int retentionDays; // Number of day buckets kept in the ring
+    private final int windowDays; // Length of the sliding window
+    private final List<Map<String, Integer>> buckets; // Ring of per-day counts
+    private final long[] bucketDay; // Day stored in each slot, or Long.MIN_VALUE if empty
+    private final Map<String, Integer> windowCounts = new HashMap<>(); // Running total of the sliding window
+    private long newestDay = Long.MIN_VALUE; // Latest day seen so far
+
+    public WindowedHashtagCounts(int retentionDays, int windowDays) {
+        if (windowDays <= 0 || retentionDays < windowDays) {
+            throw new IllegalArgumentException("Need 0 < windowDays <= retentionDays");
+        }
+        this.retentionDays = retentionDays;
+        this.windowDays = windowDays;
+        this.buckets = new ArrayList<>(retentionDays);
+        this.bucketDay = new long[retentionDays];
+        for (int i = 0; i < retentionDays; i++) {
+            buckets.add(new HashMap<>());
+            bucketDay[i] = Long.MIN_VALUE; // Mark every slot as empty
+        }
+    }
+
+    // Records one occurrence of the hashtag on the given day. Returns false if the day is
+    // already older than the retention period and the occurrence was dropped.
+    public boolean add(long day, String tag) {
+        if (newestDay == Long.MIN_VALUE || day > newestDay) {
+            advanceTo(day); // Move the window forward, expiring old days
+        }
+        if (day <= newestDay - retentionDays) {
+            return false; // Too old to keep
+        }
+        int slot = slot(day);
+        buckets.get(slot).merge(tag, 1, Integer::sum); // Count it in its day bucket
+        if (day > newestDay - windowDays) {
+            windowCounts.merge(tag, 1, Integer::sum); // Late arrival still inside the sliding window
+        }
+        return true;
+    }
+
+    // Counts for the sliding window of the last windowDays days ending at the newest day.
+    public Map<String, Integer> windowCounts() {
+        return new HashMap<>(windowCounts);
+    }
+
+    // Counts for days d1..d2 (inclusive). Days after the newest day contribute nothing; a range
+    // starting before the oldest retained day is rejected rather than silently truncated.
+    public Map<String, Integer> countsBetween(long d1, long d2) {
+        if (d1 > d2) {
+            throw new IllegalArgumentException("Range starts after it ends");
+        }
+        if (newestDay != Long.MIN_VALUE && d1 < newestDay - retentionDays + 1) {
+            throw new IllegalArgumentException("Range starts before the " + retentionDays + " retained days");
+        }
+        Map<String, Integer> counts = new HashMap<>();
+        if (newestDay == Long.MIN_VALUE) {
+            return counts; // Nothing recorded yet
+        }
+        long to = Math.min(d2, newestDay);
+        for (long day = d1; day <= to; day++) {
+            int slot = slot(day);
+            if (bucketDay[slot] != day) {
+                continue; // No tweets on this day
+            }
+            for (Map.Entry<String, Integer> e : buckets.get(slot).entrySet()) {
+                counts.merge(e.getKey(), e.getValue(), Integer::sum);
+            }
+        }
+        return counts;
+    }
+
+    public long getNewestDay() {
+        return newestDay;
+    }
+
+    public int getRetentionDays() {
+        return retentionDays;
+    }
+
+    public int getWindowDays() {
+        return windowDays;
+    }
+
+    // Moves the newest day forward, subtracting days that leave the sliding window and
+    // clearing slots for days that leave the retention period.
+    private void advanceTo(long day) {
+        long firstNew = day - retentionDays + 1; // Oldest day that stays retained after the move
+        if (newestDay != Long.MIN_VALUE) {
+            // Days from the old window that are no longer within windowDays of the new day.
+            long lastExpired = Math.min(day - windowDays, newestDay);
+            for (long d = newestDay - windowDays + 1; d <= lastExpired; d++) {
+                int slot = slot(d);
+                if (bucketDay[slot] != d) {
+                    continue; // Nothing was counted on that day
+                }
+                for (Map.Entry<String, Integer> e : buckets.get(slot).entrySet()) {
+                    int expired = e.getValue();
+                    // Subtract the expired day; drop tags that reach zero.
+                    windowCounts.computeIfPresent(e.getKey(), (k, v) -> v == expired ? null : v - expired);
+                }
+            }
+            firstNew = Math.max(firstNew, newestDay + 1); // Days up to the old newest day already own their slot
+        }
+        newestDay = day;
+        // Claim the slots for the new days, clearing whatever older day they held.
+        for (long d = firstNew; d <= day; d++) {
+            int slot = slot(d);
+            buckets.get(slot).clear(); // Reuse the slot for the new day
+            bucketDay[slot] = d;
+        }
+    }
+
+    private int slot(long day) {
+        return (int) Math.floorMod(day, (long) retentionDays);
+    }
+}
@@ -0,0 +1,78 @@
+package Question5;
+
+import java.util.Arrays;
+import java.util.Map;
+
+/*
+ * Immutable compressed-sparse-row snapshot of a Graph.
+ * - Nodes are dense int ids 0..n-1; names[id] translates back to the name typed by the user.
+ * - Every connection is one canonical edge (edgeU, edgeV, edgeCost, edgeBandwidth).
+ * - For searches each edge is also stored as two arcs: the arcs leaving node u are
+ *   offsets[u] .. offsets[u + 1] - 1, with arcTarget, arcCost, arcBandwidth and arcEdge
+ *   (the canonical edge the arc came from).
+ * A snapshot never changes after it is built; Graph builds a new one after edits. Node names are
+ * looked up in the Graph's append-only id index, ignoring ids added after the snapshot.
+ */
+
+final class CsrGraph {
+    final long version; // Graph version this snapshot was built from
+    final int n; // Number of nodes
+    final int m; // Number of canonical edges
+    final String[] names; // Node id -> name
+    private final Map<String, Integer> ids; // Graph's name -> id index (append-only, shared)
+
+    final int[] edgeU, edgeV, edgeCost, edgeBandwidth; // Canonical edges
+
+    final int[] offsets; // Arc range of each node
+    final int[] arcTarget, arcCost, arcBandwidth, arcEdge; // Arcs, grouped by source node
+
+    CsrGraph(long version, String[] names, Map<String, Integer> ids, int[] edgeU, int[] edgeV, int[] edgeCost,
+            int[] edgeBandwidth, int m) {
+        this.version = version;
+        this.n = names.length;
+        this.m = m;
+        this.names = names;
+        this.ids = ids;
+        this.edgeU = Arrays.copyOf(edgeU, m); // Copies: the Graph keeps appending to its own arrays
+        this.edgeV = Arrays.copyOf(edgeV, m);
+        this.edgeCost = Arrays.copyOf(edgeCost, m);
+        this.edgeBandwidth = Arrays.copyOf(edgeBandwidth, m);
+
+        // Two counting passes: degrees first, then fill each node's arc slots.
+        offsets = new int[n + 1];
+        for (int e = 0; e < m; e++) {
+            offsets[this.edgeU[e] + 1]++;
+            offsets[this.edgeV[e] + 1]++;
+        }
+        for (int u = 0; u < n; u++) {
+            offsets[u + 1] += offsets[u];
+        }
+        arcTarget = new int[2 * m];
+        arcCost = new int[2 * m];
+        arcBandwidth = new int[2 * m];
+        arcEdge = new int[2 * m];
+        int[] next = Arrays.copyOf(offsets, n);
+        for (int e = 0; e < m; e++) {
+            addArc(next[this.edgeU[e]]++, this.edgeV[e], e);
+            addArc(next[this.edgeV[e]]++, this.edgeU[e], e);
+        }
+    }
+
+    // Id of the named node, or -1 if the snapshot does not contain it.
+    int id(String name) {
+        Integer id = ids.get(name);
+        return id == null || id >= n ? -1 : id; // Ids added after this snapshot do not exist in it
+    }
+
+    // The endpoint of edge e that is not 'from'.
+    int other(int e, int from) {
+        return edgeU[e] == from ? edgeV[e] : edgeU[e];
+    }
+
+    private void addArc(int arc, int target, int e) {
+        arcTarget[arc] = target;
+        arcCost[arc] = edgeCost[e];
+        arcBandwidth[arc] = edgeBandwidth[e];
+        arcEdge[arc] = e;
+    }
+}
@@ -0,0 +1,361 @@
+package Question5;
+
+import java.io.IOException; // Reported for unreadable or malformed files
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/*
+ * All-pairs shortest-path costs of one CsrGraph snapshot, as an n x n int matrix held off the Java heap.
+ * - compute() runs one single-source Dijkstra per node and writes it as a whole row. Sources are
+ *   split over a ForkJoinPool (SourceRangeTask). A task hands its ShortestPathEngine and row
+ *   buffer down to the halves it runs itself, so only tasks that another worker steals allocate
+ *   new ones; the searches share nothing but the read-only snapshot, and nothing outlives compute().
+ * - Small dense graphs (at most FLOYD_WARSHALL_MAX_NODES nodes and an average degree of at least
+ *   n / 4) use Floyd-Warshall instead, blocked into TILE x TILE tiles so each pass works on data
+ *   that fits in cache; the tiles of the last phase of each round run in parallel.
+ * - Rows live in direct ByteBuffers of at most BLOCK_BYTES each (little-endian ints), so the
+ *   matrix is not limited to 2 GB and does not weigh on the garbage collector. A computed
+ *   matrix uses allocateDirect (bounded by -XX:MaxDirectMemorySize); a loaded one maps the file.
+ * - UNREACHABLE marks pairs with no path; costs above Integer.MAX_VALUE - 1 are cut to that value.
+ * File layout (little-endian):
+ *   int  magic      'Q5DM'
+ *   int  version    1
+ *   int  n          number of nodes
+ *   int  reserved   0
+ *   long offset     where the matrix starts (a multiple of 8)
+ *   n x (int length, length bytes of UTF-8)   node names, by id
+ *   zero padding up to offset
+ *   n x n ints                                the matrix, row by row
+ */
+
+final class DistanceMatrix {
+    static final int UNREACHABLE = Integer.MAX_VALUE; // Stored for pairs with no path
+    static final int FLOYD_WARSHALL_MAX_NODES = 1024; // Larger graphs always use one Dijkstra per source
+    private static final int TILE = 64; // Floyd-Warshall tile side (64 x 64 longs = 32 KB)
+    private static final long INFINITE = Long.MAX_VALUE / 4; // Floyd-Warshall "no path"; sums cannot overflow
+    private static final int MAGIC = 0x4D443551; // "Q5DM" read as a little-endian int
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 24;
+    private static final long BLOCK_BYTES = 1L << 30; // Largest buffer holding rows
+
+    final int n;
+    final String[] names; // Node names, by id
+    private final Map<String, Integer> ids; // Name -> id
+    private final int rowsPerBlock;
+    private final IntBuffer[] blocks; // blocks[b] holds rows b * rowsPerBlock ..
+
+    private DistanceMatrix(String[] names, Map<String, Integer> ids, IntBuffer[] blocks, int rowsPerBlock) {
+        this.n = names.length;
+        this.names = names;
+        this.ids = ids;
+        this.blocks = blocks;
+        this.rowsPerBlock = rowsPerBlock;
+    }
+
+    // Fresh zeroed matrix in direct memory; compute() writes every row.
+    private static DistanceMatrix allocate(String[] names, Map<String, Integer> ids) {
+        int n = names.length;
+        int rowsPerBlock = rowsPerBlock(n);
+        IntBuffer[] blocks = new IntBuffer[(n + rowsPerBlock - 1) / rowsPerBlock];
+        for (int b = 0; b < blocks.length; b++) {
+            int rows = Math.min(rowsPerBlock, n - b * rowsPerBlock);
+            blocks[b] = ByteBuffer.allocateDirect(rows * n * 4).order(ByteOrder.LITTLE_ENDIAN).asIntBuffer();
+        }
+        return new DistanceMatrix(names, ids, blocks, rowsPerBlock);
+    }
+
+    private static int rowsPerBlock(int n) {
+        return n == 0 ? 1 : (int) Math.max(1, BLOCK_BYTES / (4L * n));
+    }
+
+    // Computes every pairwise cost of the snapshot on the pool; progress counts finished sources.
+    static DistanceMatrix compute(CsrGraph graph, ForkJoinPool pool, Progress progress) {
+        String[] names = Arrays.copyOf(graph.names, graph.n);
+        Map<String, Integer> ids = new HashMap<>(); // Own copy: the graph's map keeps growing with later edits
+        for (int i = 0; i < names.length; i++) {
+            ids.put(names[i], i);
+        }
+        DistanceMatrix matrix = allocate(names, ids);
+        if (graph.n <= FLOYD_WARSHALL_MAX_NODES && 8L * graph.m >= (long) graph.n * graph.n) {
+            matrix.floydWarshall(graph, pool, progress);
+        } else {
+            pool.invoke(new SourceRangeTask(graph, matrix, 0, graph.n, new AtomicInteger(), progress, null));
+        }
+        return matrix;
+    }
+
+    // Cost from one id to another, or UNREACHABLE.
+    int get(int from, int to) {
+        return blocks[from / rowsPerBlock].get((from % rowsPerBlock) * n + to);
+    }
+
+    // Cost between two named nodes, or -1 if either is unknown or there is no path.
+    long distance(String from, String to) {
+        Integer s = ids.get(from), t = ids.get(to);
+        if (s == null || t == null) {
+            return -1;
+        }
+        int d = get(s, t);
+        return d == UNREACHABLE ? -1 : d;
+    }
+
+    // Copies row 'from' (costs to every node) into row[0..n).
+    void readRow(int from, int[] row) {
+        blocks[from / rowsPerBlock].get((from % rowsPerBlock) * n, row, 0, n);
+    }
+
+    private void writeRow(int from, int[] row) {
+        blocks[from / rowsPerBlock].put((from % rowsPerBlock) * n, row, 0, n); // Absolute: safe across threads
+    }
+
+    // Blocked Floyd-Warshall on a heap copy of the matrix (small graphs only), then copied into the rows.
+    private void floydWarshall(CsrGraph graph, ForkJoinPool pool, Progress progress) {
+        long[] d = new long[n * n];
+        Arrays.fill(d, INFINITE);
+        for (int i = 0; i < n; i++) {
+            d[i * n + i] = 0;
+        }
+        for (int e = 0; e < graph.m; e++) { // Cheapest direct link in both directions
+            int u = graph.edgeU[e], v = graph.edgeV[e];
+            long c = graph.edgeCost[e];
+            if (u != v && c < d[u * n + v]) {
+                d[u * n + v] = c;
+                d[v * n + u] = c;
+            }
+        }
+        int tiles = (n + TILE - 1) / TILE;
+        for (int k = 0; k < tiles; k++) {
+            progress.update(k, tiles);
+            tile(d, k, k, k); // Phase 1: the diagonal tile on its own
+            for (int t = 0; t < tiles; t++) { // Phase 2: the rest of tile row k and tile column k
+                if (t != k) {
+                    tile(d, k, t, k);
+                    tile(d, t, k, k);
+                }
+            }
+            pool.invoke(new TileRowsTask(d, k, 0, tiles)); // Phase 3: all other tiles, independent of each other
+        }
+        int[] row = new int[n];
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < n; j++) {
+                long v = d[i * n + j];
+                row[j] = v >= INFINITE ? UNREACHABLE : (int) Math.min(v, Integer.MAX_VALUE - 1);
+            }
+            writeRow(i, row);
+        }
+    }
+
+    // Relaxes tile (ti, tj) through the nodes of tile k.
+    private void tile(long[] d, int ti, int tj, int tk) {
+        int i0 = ti * TILE, i1 = Math.min(n, i0 + TILE);
+        int j0 = tj * TILE, j1 = Math.min(n, j0 + TILE);
+        int k0 = tk * TILE, k1 = Math.min(n, k0 + TILE);
+        for (int k = k0; k < k1; k++) {
+            int rowK = k * n;
+            for (int i = i0; i < i1; i++) {
+                long dik = d[i * n + k];
+                if (dik >= INFINITE) {
+                    continue; // No path from i to k yet
+                }
+                int rowI = i * n;
+                for (int j = j0; j < j1; j++) {
+                    long through = dik + d[rowK + j];
+                    if (through < d[rowI + j]) {
+                        d[rowI + j] = through;
+                    }
+                }
+            }
+        }
+    }
+
+    // Phase 3 of one Floyd-Warshall round for tile rows [from, to), split across the pool.
+    private final class TileRowsTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final long[] d;
+        private final int k, from, to;
+
+        TileRowsTask(long[] d, int k, int from, int to) {
+            this.d = d;
+            this.k = k;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > 1) {
+                int mid = (from + to) >>> 1;
+                invokeAll(new TileRowsTask(d, k, from, mid), new TileRowsTask(d, k, mid, to));
+                return;
+            }
+            int tiles = (n + TILE - 1) / TILE;
+            for (int ti = from; ti < to; ti++) {
+                for (int tj = 0; ti != k && tj < tiles; tj++) {
+                    if (tj != k) {
+                        tile(d, ti, tj, k);
+                    }
+                }
+            }
+        }
+    }
+
+    // Runs Dijkstra from the sources [from, to), splitting the range until it is small.
+    private static final class SourceRangeTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        private static final int RANGE_SIZE = 16; // Sources per leaf task
+
+        private final CsrGraph graph;
+        private final DistanceMatrix matrix;
+        private final int from, to;
+        private final AtomicInteger done; // Sources finished by all workers
+        private final Progress progress;
+        private Scratch scratch; // Handed down by the parent when it runs this task itself; else null
+
+        SourceRangeTask(CsrGraph graph, DistanceMatrix matrix, int from, int to, AtomicInteger done, Progress progress,
+                Scratch scratch) {
+            this.graph = graph;
+            this.matrix = matrix;
+            this.from = from;
+            this.to = to;
+            this.done = done;
+            this.progress = progress;
+            this.scratch = scratch;
+        }
+
+        @Override
+        protected void compute() {
+            if (scratch == null) { // The root task, or one stolen by another worker
+                scratch = new Scratch(graph);
+            }
+            if (to - from > RANGE_SIZE) { // Too many sources: split in half
+                int mid = (from + to) >>> 1;
+                SourceRangeTask left = new SourceRangeTask(graph, matrix, from, mid, done, progress, null);
+                left.fork(); // Let another worker pick up the left half
+                new SourceRangeTask(graph, matrix, mid, to, done, progress, scratch).compute(); // Right half here
+                if (left.tryUnfork()) { // Nobody took it: run it here with the same buffers
+                    left.scratch = scratch;
+                    left.compute();
+                } else {
+                    left.join();
+                }
+                return;
+            }
+            for (int s = from; s < to; s++) {
+                scratch.engine.distancesFrom(s, scratch.row); // One search fills the whole row
+                matrix.writeRow(s, scratch.row);
+                progress.update(done.incrementAndGet(), graph.n);
+            }
+        }
+    }
+
+    // Search state shared by the SourceRangeTasks one worker runs in a row.
+    private static final class Scratch {
+        final ShortestPathEngine engine;
+        final int[] row;
+
+        Scratch(CsrGraph graph) {
+            engine = new ShortestPathEngine(graph);
+            row = new int[graph.n];
+        }
+    }
+
+    // Saves the names and the matrix so they can be loaded again without recomputing.
+    void write(Path file) throws IOException {
+        try (FileChannel out = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            byte[][] encoded = new byte[n][];
+            long offset = HEADER_BYTES;
+            for (int i = 0; i < n; i++) {
+                encoded[i] = names[i].getBytes(StandardCharsets.UTF_8);
+                offset += 4 + encoded[i].length;
+            }
+            offset = (offset + 7) & ~7L; // The matrix starts 8-byte aligned
+            ByteBuffer buf = ByteBuffer.allocateDirect(1 << 16).order(ByteOrder.LITTLE_ENDIAN);
+            buf.putInt(MAGIC).putInt(VERSION).putInt(n).putInt(0).putLong(offset);
+            for (byte[] name : encoded) {
+                if (buf.remaining() < 4 + name.length) {
+                    drain(out, buf);
+                }
+                if (buf.remaining() < 4 + name.length) { // Longer than the buffer: write it on its own
+                    buf.putInt(name.length);
+                    drain(out, buf);
+                    out.write(ByteBuffer.wrap(name));
+                    continue;
+                }
+                buf.putInt(name.length).put(name);
+            }
+            drain(out, buf);
+            out.position(offset);
+            ByteBuffer row = ByteBuffer.allocateDirect(4 * n).order(ByteOrder.LITTLE_ENDIAN);
+            int[] values = new int[n];
+            for (int i = 0; i < n; i++) {
+                readRow(i, values);
+                row.clear();
+                row.asIntBuffer().put(values); // The view has its own position
+                row.position(4 * n);
+                drain(out, row);
+            }
+        }
+    }
+
+    // Maps a saved matrix; rows are read straight from the page cache, not copied onto the heap.
+    static DistanceMatrix load(Path file) throws IOException {
+        try (FileChannel in = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (in.size() < HEADER_BYTES) {
+                throw new IOException("Not a distance matrix file: " + file);
+            }
+            ByteBuffer header = in.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            if (header.getInt() != MAGIC || header.getInt() != VERSION) {
+                throw new IOException("Not a distance matrix file: " + file);
+            }
+            int n = header.getInt();
+            header.getInt(); // Reserved
+            long offset = header.getLong();
+            if (n < 0 || offset < HEADER_BYTES || (offset & 7) != 0 || in.size() != offset + 4L * n * n) {
+                throw new IOException("Truncated or corrupt distance matrix file: " + file);
+            }
+            ByteBuffer nameBytes = in.map(FileChannel.MapMode.READ_ONLY, HEADER_BYTES, offset - HEADER_BYTES)
+                    .order(ByteOrder.LITTLE_ENDIAN);
+            String[] names = new String[n];
+            Map<String, Integer> ids = new HashMap<>();
+            for (int i = 0; i < n; i++) {
+                int length = nameBytes.remaining() >= 4 ? nameBytes.getInt() : -1;
+                if (length < 0 || length > nameBytes.remaining()) {
+                    throw new IOException("Corrupt name table in " + file);
+                }
+                byte[] name = new byte[length];
+                nameBytes.get(name);
+                names[i] = new String(name, StandardCharsets.UTF_8);
+                ids.put(names[i], i);
+            }
+            int rowsPerBlock = rowsPerBlock(n);
+            IntBuffer[] blocks = new IntBuffer[(n + rowsPerBlock - 1) / rowsPerBlock];
+            for (int b = 0; b < blocks.length; b++) {
+                int rows = Math.min(rowsPerBlock, n - b * rowsPerBlock);
+                blocks[b] = in.map(FileChannel.MapMode.READ_ONLY, offset + 4L * n * b * rowsPerBlock, 4L * n * rows)
+                        .order(ByteOrder.LITTLE_ENDIAN).asIntBuffer(); // Stays valid after the channel closes
+            }
+            return new DistanceMatrix(names, ids, blocks, rowsPerBlock);
+        }
+    }
+
+    private static void drain(FileChannel out, ByteBuffer buf) throws IOException {
+        buf.flip();
+        while (buf.hasRemaining()) {
+            out.write(buf);
+        }
+        buf.clear();
+    }
+}
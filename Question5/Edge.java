@@ -0,0 +1,18 @@
+package Question5;
+
+/*
+ * One connection by node name, as reported to the user (for example the links of a minimum
+ * spanning tree in MstResult).
+ */
+
+class Edge {
+    String node1, node2;
+    int cost, bandwidth;
+
+    public Edge(String node1, String node2, int cost, int bandwidth) {
+        this.node1 = node1; // Initialize the first node
+        this.node2 = node2; // Initialize the second node
+        this.cost = cost; // Initialize the cost
+        this.bandwidth = bandwidth; // Initialize the bandwidth
+    }
+}
@@ -0,0 +1,185 @@
+package Question5;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/*
+ * Force-directed layout (Fruchterman-Reingold) computed incrementally on a background thread.
+ * - Every node repels every other with k^2 / distance, approximated with Barnes-Hut on a
+ *   PointQuadTree so one step costs O(n log n) instead of O(n^2). Each link pulls its ends
+ *   together with distance^2 / k, and a weak pull toward the origin keeps separate components close.
+ * - A temperature caps how far a node may move per step and cools every step; once it is
+ *   cold the thread sleeps until the graph changes.
+ * - When a new snapshot arrives, node ids are stable (they are only ever appended), so existing
+ *   nodes keep their positions, new nodes start next to a placed neighbor, and the layout is
+ *   reheated only as much as the share of new nodes requires.
+ * - Positions are published as immutable Frames (copied arrays plus a quadtree for culling)
+ *   at most every FRAME_MILLIS, and onFrame is called so the panel can repaint. Painting
+ *   never waits for the layout and never sees half-moved positions.
+ */
+
+final class ForceLayout {
+    static final float K = 60f; // Preferred link length in world units
+    private static final float THETA = 0.9f; // Barnes-Hut accuracy: larger is faster and coarser
+    private static final float GRAVITY = 0.1f; // Pull toward the origin, in units of K
+    private static final float COOLING = 0.99f; // Temperature factor per step
+    private static final float MIN_TEMPERATURE = K * 0.01f; // Below this the layout counts as settled
+    private static final long FRAME_MILLIS = 40; // Shortest time between published frames
+
+    // Node positions of one snapshot at one moment, plus a quadtree over them.
+    static final class Frame {
+        final CsrGraph graph;
+        final float[] x, y;
+        final PointQuadTree index; // For viewport culling
+        final float minX, minY, maxX, maxY; // Bounding box of all nodes
+
+        Frame(CsrGraph graph, float[] x, float[] y) {
+            this.graph = graph;
+            this.x = x;
+            this.y = y;
+            this.index = new PointQuadTree(x, y, graph.n);
+            float x0 = 0, y0 = 0, x1 = 0, y1 = 0;
+            for (int i = 0; i < graph.n; i++) {
+                x0 = i == 0 ? x[i] : Math.min(x0, x[i]);
+                y0 = i == 0 ? y[i] : Math.min(y0, y[i]);
+                x1 = i == 0 ? x[i] : Math.max(x1, x[i]);
+                y1 = i == 0 ? y[i] : Math.max(y1, y[i]);
+            }
+            minX = x0;
+            minY = y0;
+            maxX = x1;
+            maxY = y1;
+        }
+    }
+
+    private final Runnable onFrame; // Called after a new frame is published (from the layout thread)
+    private final Thread worker;
+    private CsrGraph pending; // Newest snapshot not yet picked up by the worker (guarded by this)
+    private volatile Frame frame; // Latest published positions, or null before the first one
+
+    private CsrGraph graph; // Snapshot being laid out (worker thread only)
+    private float[] x = new float[0], y = new float[0]; // Current positions (worker thread only)
+    private float[] dispX = new float[0], dispY = new float[0]; // Displacement of the current step
+    private float temperature; // Largest move allowed in the next step
+    private final Random random = new Random(42); // Fixed seed: the same graph gets the same layout
+    private final float[] force = new float[2];
+
+    ForceLayout(Runnable onFrame) {
+        this.onFrame = onFrame;
+        this.worker = new Thread(this::run, "graph-layout");
+        this.worker.setDaemon(true); // Does not keep the application alive
+        this.worker.start();
+    }
+
+    // Lays out a new snapshot, starting from the positions computed so far.
+    synchronized void update(CsrGraph snapshot) {
+        pending = snapshot;
+        notifyAll();
+    }
+
+    Frame frame() {
+        return frame;
+    }
+
+    void stop() {
+        worker.interrupt();
+    }
+
+    private void run() {
+        long lastPublish = 0;
+        try {
+            while (true) {
+                CsrGraph next;
+                synchronized (this) {
+                    while (pending == null && temperature < MIN_TEMPERATURE) {
+                        wait(); // Settled: sleep until the graph changes
+                    }
+                    next = pending;
+                    pending = null;
+                }
+                if (next != null && next != graph) {
+                    adopt(next);
+                }
+                boolean settled = false;
+                if (temperature >= MIN_TEMPERATURE) {
+                    step();
+                    temperature *= COOLING;
+                    settled = temperature < MIN_TEMPERATURE;
+                }
+                long now = System.currentTimeMillis();
+                if (settled || now - lastPublish >= FRAME_MILLIS) {
+                    frame = new Frame(graph, Arrays.copyOf(x, graph.n), Arrays.copyOf(y, graph.n));
+                    lastPublish = now;
+                    onFrame.run();
+                }
+            }
+        } catch (InterruptedException e) {
+            // stop() was called
+        }
+    }
+
+    // Switches to a newer snapshot, keeping the positions of nodes that were already placed.
+    private void adopt(CsrGraph next) {
+        int placed = graph == null ? 0 : graph.n;
+        x = Arrays.copyOf(x, next.n);
+        y = Arrays.copyOf(y, next.n);
+        dispX = new float[next.n];
+        dispY = new float[next.n];
+        float spread = K * (float) Math.sqrt(next.n); // Rough radius of a settled layout
+        for (int v = placed; v < next.n; v++) {
+            int anchor = -1;
+            for (int a = next.offsets[v]; a < next.offsets[v + 1] && anchor == -1; a++) {
+                if (next.arcTarget[a] < v) {
+                    anchor = next.arcTarget[a]; // A neighbor that already has a position
+                }
+            }
+            if (anchor != -1) {
+                x[v] = x[anchor] + (random.nextFloat() - 0.5f) * K;
+                y[v] = y[anchor] + (random.nextFloat() - 0.5f) * K;
+            } else {
+                x[v] = (random.nextFloat() - 0.5f) * spread;
+                y[v] = (random.nextFloat() - 0.5f) * spread;
+            }
+        }
+        float newShare = next.n == 0 ? 0 : (float) (next.n - placed) / next.n;
+        temperature = Math.max(temperature, K * (placed == 0 ? 2f : 0.25f + 1.75f * newShare)); // Reheat
+        graph = next;
+    }
+
+    // One layout step: Barnes-Hut repulsion, link attraction and gravity, limited by the temperature.
+    private void step() {
+        int n = graph.n;
+        PointQuadTree tree = new PointQuadTree(x, y, n);
+        float k2 = K * K;
+        for (int v = 0; v < n; v++) {
+            force[0] = 0;
+            force[1] = 0;
+            tree.repulsion(v, THETA, k2, force);
+            float d = (float) Math.sqrt(x[v] * x[v] + y[v] * y[v]);
+            float pull = d > 0 ? GRAVITY * K / d : 0; // Same strength at any distance from the origin
+            dispX[v] = force[0] - x[v] * pull;
+            dispY[v] = force[1] - y[v] * pull;
+        }
+        for (int e = 0; e < graph.m; e++) { // Each link once, pulling both ends together
+            int u = graph.edgeU[e], v = graph.edgeV[e];
+            if (u == v) {
+                continue;
+            }
+            float dx = x[u] - x[v], dy = y[u] - y[v];
+            float d = (float) Math.sqrt(dx * dx + dy * dy);
+            float pull = d / K; // Magnitude d^2 / k times the unit direction dx / d
+            dispX[u] -= dx * pull;
+            dispY[u] -= dy * pull;
+            dispX[v] += dx * pull;
+            dispY[v] += dy * pull;
+        }
+        for (int v = 0; v < n; v++) {
+            float d = (float) Math.sqrt(dispX[v] * dispX[v] + dispY[v] * dispY[v]);
+            if (d > 0) {
+                float move = Math.min(d, temperature) / d; // Never move further than the temperature
+                x[v] += dispX[v] * move;
+                y[v] += dispY[v] * move;
+            }
+        }
+    }
+}
@@ -0,0 +1,175 @@
+package Question5;
+
+import java.awt.*;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.awt.event.MouseWheelEvent;
+import java.util.Arrays;
+import javax.swing.*;
+
+/*
+ * Panel that draws the network from the positions computed by a ForceLayout.
+ * - Painting reads the latest published Frame and never waits for the layout thread.
+ * - Only what is visible is drawn: nodes come from a quadtree query for the viewport, and a
+ *   link is skipped when its bounding box misses the viewport or it is shorter than a pixel.
+ * - Each link is drawn once from the canonical edge list, and all links, then all nodes, then
+ *   all labels are drawn together so the color changes only a few times per paint.
+ * - Names and costs are only drawn when zoomed in far enough for them to be readable, and
+ *   nodes only a few pixels wide are filled as squares, which is much cheaper than circles.
+ * - Drag to pan, use the mouse wheel to zoom around the pointer, double-click to fit the
+ *   whole network again. Until the user pans or zooms, the view follows the layout.
+ */
+
+class GraphPanel extends JPanel {
+    private static final int NODE_RADIUS = 20; // Node radius in pixels at zoom 1
+    private static final int DOT_RADIUS = 3; // At or below this radius nodes are drawn as squares
+    private static final int LABEL_LIMIT = 2000; // Names/costs are skipped when more are visible
+    private static final double MAX_FIT_SCALE = 1.5; // Small networks are not blown up past this
+
+    private final ForceLayout layout = new ForceLayout(this::repaint); // repaint() is thread-safe
+    private double scale = 1, offsetX, offsetY; // screen = world * scale + offset
+    private boolean following = true; // Fit the view to the layout until the user pans or zooms
+    private Point dragFrom; // Last mouse position while dragging
+    private int[] visible = new int[256]; // Node ids found by the last viewport query
+    private int visibleCount;
+    private int[] drawnEdges = new int[256]; // Edge ids drawn by the last paint
+    private int drawnCount;
+
+    GraphPanel() {
+        MouseAdapter mouse = new MouseAdapter() {
+            @Override
+            public void mousePressed(MouseEvent e) {
+                dragFrom = e.getPoint();
+            }
+
+            @Override
+            public void mouseDragged(MouseEvent e) {
+                offsetX += e.getX() - dragFrom.x; // Pan by the distance dragged
+                offsetY += e.getY() - dragFrom.y;
+                dragFrom = e.getPoint();
+                following = false;
+                repaint();
+            }
+
+            @Override
+            public void mouseWheelMoved(MouseWheelEvent e) {
+                double factor = Math.pow(1.15, -e.getPreciseWheelRotation()); // Wheel up zooms in
+                offsetX = e.getX() - (e.getX() - offsetX) * factor; // Keep the point under the pointer still
+                offsetY = e.getY() - (e.getY() - offsetY) * factor;
+                scale *= factor;
+                following = false;
+                repaint();
+            }
+
+            @Override
+            public void mouseClicked(MouseEvent e) {
+                if (e.getClickCount() == 2) {
+                    following = true; // Back to the whole network
+                    repaint();
+                }
+            }
+        };
+        addMouseListener(mouse);
+        addMouseMotionListener(mouse);
+        addMouseWheelListener(mouse);
+    }
+
+    // Lays out a new snapshot of the network; the panel repaints as the layout progresses.
+    void graphChanged(CsrGraph snapshot) {
+        layout.update(snapshot);
+    }
+
+    @Override
+    protected void paintComponent(Graphics g) {
+        super.paintComponent(g); // Call the superclass's paint method to ensure proper rendering
+        ForceLayout.Frame frame = layout.frame();
+        if (frame == null || frame.graph.n == 0) {
+            return; // Nothing laid out yet
+        }
+        if (following) {
+            fit(frame);
+        }
+        CsrGraph graph = frame.graph;
+        float[] x = frame.x, y = frame.y;
+        int radius = (int) Math.max(2, Math.min(NODE_RADIUS, NODE_RADIUS * scale)); // Shrinks when zoomed out
+        float margin = (float) (radius / scale); // Nodes just outside the edge are still partly visible
+        float minX = (float) (-offsetX / scale) - margin, minY = (float) (-offsetY / scale) - margin;
+        float maxX = (float) ((getWidth() - offsetX) / scale) + margin;
+        float maxY = (float) ((getHeight() - offsetY) / scale) + margin;
+
+        // Draw edges (connections between nodes), each once
+        g.setColor(Color.RED); // Set the color for edges
+        drawnCount = 0;
+        for (int e = 0; e < graph.m; e++) {
+            int u = graph.edgeU[e], v = graph.edgeV[e];
+            if (Math.max(x[u], x[v]) < minX || Math.min(x[u], x[v]) > maxX || Math.max(y[u], y[v]) < minY
+                    || Math.min(y[u], y[v]) > maxY) {
+                continue; // Off screen
+            }
+            int x1 = screenX(x[u]), y1 = screenY(y[u]), x2 = screenX(x[v]), y2 = screenY(y[v]);
+            if (x1 == x2 && y1 == y2) {
+                continue; // Shorter than a pixel
+            }
+            g.drawLine(x1, y1, x2, y2); // Draw the edge between the nodes
+            if (drawnCount == drawnEdges.length) {
+                drawnEdges = Arrays.copyOf(drawnEdges, drawnCount * 2);
+            }
+            drawnEdges[drawnCount++] = e;
+        }
+
+        // Draw the nodes inside the viewport
+        visibleCount = 0;
+        frame.index.query(minX, minY, maxX, maxY, this::addVisible);
+        g.setColor(Color.BLUE); // Set the color for nodes
+        boolean dots = radius <= DOT_RADIUS; // Tiny circles look like squares and cost far more to fill
+        for (int i = 0; i < visibleCount; i++) {
+            int node = visible[i], sx = screenX(x[node]) - radius, sy = screenY(y[node]) - radius;
+            if (dots) {
+                g.fillRect(sx, sy, radius * 2, radius * 2);
+            } else {
+                g.fillOval(sx, sy, radius * 2, radius * 2); // Draw the node as a circle
+            }
+        }
+
+        // Labels, only when they can be read
+        g.setColor(Color.BLACK); // Set the color for the text
+        if (radius >= NODE_RADIUS / 2 && visibleCount <= LABEL_LIMIT) {
+            for (int i = 0; i < visibleCount; i++) {
+                int node = visible[i];
+                g.drawString(graph.names[node], screenX(x[node]) - radius / 2, screenY(y[node]) - radius); // Draw the node's name
+            }
+        }
+        if (radius >= NODE_RADIUS / 2 && drawnCount <= LABEL_LIMIT) {
+            for (int i = 0; i < drawnCount; i++) {
+                int e = drawnEdges[i], u = graph.edgeU[e], v = graph.edgeV[e];
+                g.drawString(String.valueOf(graph.edgeCost[e]), (screenX(x[u]) + screenX(x[v])) / 2,
+                        (screenY(y[u]) + screenY(y[v])) / 2); // Draw the cost label
+            }
+        }
+    }
+
+    private void addVisible(int node) {
+        if (visibleCount == visible.length) {
+            visible = Arrays.copyOf(visible, visibleCount * 2);
+        }
+        visible[visibleCount++] = node;
+    }
+
+    // Scales and centers the view so the whole layout fits the panel.
+    private void fit(ForceLayout.Frame frame) {
+        int pad = NODE_RADIUS * 2;
+        double width = Math.max(1, getWidth() - 2 * pad), height = Math.max(1, getHeight() - 2 * pad);
+        double spanX = Math.max(frame.maxX - frame.minX, 1e-3), spanY = Math.max(frame.maxY - frame.minY, 1e-3);
+        scale = Math.min(MAX_FIT_SCALE, Math.min(width / spanX, height / spanY));
+        offsetX = getWidth() / 2.0 - (frame.minX + frame.maxX) / 2.0 * scale;
+        offsetY = getHeight() / 2.0 - (frame.minY + frame.maxY) / 2.0 * scale;
+    }
+
+    private int screenX(float worldX) {
+        return (int) (worldX * scale + offsetX);
+    }
+
+    private int screenY(float worldY) {
+        return (int) (worldY * scale + offsetY);
+    }
+}
@@ -0,0 +1,111 @@
+package Question5;
+
+import java.util.Arrays;
+
+/*
+ * Indexed 4-ary min-heap over int ids 0..capacity-1 with long keys.
+ * - pos[id] is the id's slot in the heap array (-1 when it is not queued), so a queued id
+ *   can have its key lowered in place (decrease-key) instead of being pushed a second time.
+ * - Four children per slot keep the tree shallow: children of slot i are 4i+1 .. 4i+4.
+ * - clear() only resets the ids still queued, so one heap is reused across many searches.
+ */
+
+final class IndexedHeap {
+    private final int[] heap; // Heap slots holding ids
+    private final long[] keys; // keys[slot] is the key of heap[slot]
+    private final int[] pos; // Slot of each id, or -1
+    private int size; // Number of queued ids
+
+    IndexedHeap(int capacity) {
+        heap = new int[capacity];
+        keys = new long[capacity];
+        pos = new int[capacity];
+        Arrays.fill(pos, -1);
+    }
+
+    int capacity() {
+        return pos.length;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    boolean contains(int id) {
+        return pos[id] != -1;
+    }
+
+    // Queues id with the given key, or lowers its key if it is already queued with a larger one.
+    void insertOrDecrease(int id, long key) {
+        int slot = pos[id];
+        if (slot == -1) {
+            slot = size++;
+        } else if (key >= keys[slot]) {
+            return; // Already queued with a key at least as good
+        }
+        siftUp(slot, id, key);
+    }
+
+    long minKey() {
+        return keys[0];
+    }
+
+    // Removes and returns the id with the smallest key.
+    int pollMin() {
+        int min = heap[0];
+        pos[min] = -1;
+        size--;
+        if (size > 0) {
+            siftDown(0, heap[size], keys[size]); // Move the last entry down from the root
+        }
+        return min;
+    }
+
+    // Empties the heap, touching only the ids still queued.
+    void clear() {
+        for (int i = 0; i < size; i++) {
+            pos[heap[i]] = -1;
+        }
+        size = 0;
+    }
+
+    private void siftUp(int slot, int id, long key) {
+        while (slot > 0) {
+            int parent = (slot - 1) >>> 2;
+            if (keys[parent] <= key) {
+                break;
+            }
+            place(slot, heap[parent], keys[parent]); // Pull the parent down
+            slot = parent;
+        }
+        place(slot, id, key);
+    }
+
+    private void siftDown(int slot, int id, long key) {
+        while (true) {
+            int first = 4 * slot + 1;
+            if (first >= size) {
+                break;
+            }
+            int best = first; // Smallest of up to four children
+            int last = Math.min(first + 4, size);
+            for (int c = first + 1; c < last; c++) {
+                if (keys[c] < keys[best]) {
+                    best = c;
+                }
+            }
+            if (keys[best] >= key) {
+                break;
+            }
+            place(slot, heap[best], keys[best]); // Pull the child up
+            slot = best;
+        }
+        place(slot, id, key);
+    }
+
+    private void place(int slot, int id, long key) {
+        heap[slot] = id;
+        keys[slot] = key;
+        pos[id] = slot;
+    }
+}
@@ -0,0 +1,82 @@
+package Question5;
+
+import java.util.Arrays;
+
+/*
+ * Landmark distances for ALT (A*, Landmarks, Triangle inequality) searches.
+ * For a landmark L and nodes v, t the triangle inequality gives
+ *     dist(v, t) >= |dist(L, t) - dist(L, v)|,
+ * so the largest of these values over all landmarks is a lower bound on the remaining cost.
+ * Landmarks are picked by farthest-point selection: each new landmark is the node farthest from
+ * the landmarks chosen so far (nodes in components without a landmark count as farthest).
+ * Computing them costs one Dijkstra per landmark, so Graph caches them per snapshot.
+ */
+
+final class Landmarks {
+    final CsrGraph graph; // Snapshot the distances belong to
+    private final long[][] dist; // dist[i][v]: cost from landmark i to v (Long.MAX_VALUE if unreachable)
+
+    private Landmarks(CsrGraph graph, long[][] dist) {
+        this.graph = graph;
+        this.dist = dist;
+    }
+
+    // Chooses up to 'count' landmarks and computes their distances to every node.
+    static Landmarks select(CsrGraph graph, int count) {
+        return select(graph, count, Progress.NONE);
+    }
+
+    // As above, reporting the nodes settled across all the searches to progress.
+    static Landmarks select(CsrGraph graph, int count, Progress progress) {
+        ShortestPathEngine engine = new ShortestPathEngine(graph);
+        int wanted = Math.min(count, graph.n);
+        long total = (wanted + 1L) * graph.n; // One search from node 0, then one per landmark
+        long[] finished = new long[1]; // Nodes settled by the searches already completed
+        engine.setProgress((done, n) -> progress.update(finished[0] + done, total));
+        long[][] dist = new long[wanted][];
+        long[] nearest = new long[graph.n]; // Distance from each node to its closest landmark so far
+        Arrays.fill(nearest, Long.MAX_VALUE);
+
+        int candidate = farthest(graph.n == 0 ? null : engine.distancesFrom(0)); // Start far from node 0
+        int chosen = 0;
+        while (chosen < wanted && candidate != -1) {
+            finished[0] = (chosen + 1L) * graph.n;
+            dist[chosen] = engine.distancesFrom(candidate);
+            for (int v = 0; v < graph.n; v++) {
+                nearest[v] = Math.min(nearest[v], dist[chosen][v]);
+            }
+            chosen++;
+            candidate = farthest(nearest);
+            if (candidate != -1 && nearest[candidate] == 0) {
+                candidate = -1; // Every node is already 0 away from a landmark
+            }
+        }
+        return new Landmarks(graph, Arrays.copyOf(dist, chosen));
+    }
+
+    // Lower bound on the cost from v to t.
+    long lowerBound(int v, int t) {
+        long best = 0;
+        for (long[] d : dist) {
+            long dv = d[v], dt = d[t];
+            if (dv != Long.MAX_VALUE && dt != Long.MAX_VALUE) { // Only landmarks that reach both nodes give a bound
+                best = Math.max(best, Math.abs(dt - dv));
+            }
+        }
+        return best;
+    }
+
+    // Node with the largest value (Long.MAX_VALUE counts as largest), or -1 for no nodes.
+    private static int farthest(long[] values) {
+        if (values == null) {
+            return -1;
+        }
+        int best = -1;
+        for (int v = 0; v < values.length; v++) {
+            if (best == -1 || values[v] > values[best]) {
+                best = v;
+            }
+        }
+        return best;
+    }
+}
@@ -0,0 +1,206 @@
+package Question5;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/*
+ * Minimum spanning tree engine over one CsrGraph snapshot.
+ * - Ingestion keeps one canonical edge per pair of nodes: parallel links between the same two
+ *   nodes are reduced to the cheapest one (the widest on equal cost) and self-loops are dropped,
+ *   so repeated connections can no longer inflate the edge list or the reported totals.
+ *   It runs in O(n + m) by scanning each node's arcs with a "last seen from" marker per neighbor.
+ * - kruskal() sorts the canonical edges by cost (packed into a long[] for a primitive sort), then
+ *   each run of equal cost by bandwidth, and joins trees with a union-find using union by rank and
+ *   path halving, without recursion.
+ * - prim() grows a tree from every node not yet reached, keeping each outside node in an
+ *   IndexedHeap keyed by its cheapest link into the tree; nothing is sorted, so it suits dense graphs.
+ * Both order links by cost and then by larger bandwidth, so they return the same totals: the least
+ * cost, and the most bandwidth among the trees of that cost.
+ * solve() picks Prim when at least half of all node pairs are linked and Kruskal otherwise.
+ * On a disconnected network both return a minimum spanning forest.
+ * Each phase reports to a Progress every few thousand steps, which may cancel it by throwing.
+ * Graph.minimumSpanningTree (plain Kruskal over every edge) is the reference this is checked against
+ * by "Question5 --check".
+ */
+
+final class MstEngine {
+    final CsrGraph graph; // Snapshot this engine works on
+    private final int[] edges; // Canonical edge ids left after removing parallel links and self-loops
+    private final int edgeCount;
+
+    MstEngine(CsrGraph graph, Progress progress) {
+        this.graph = graph;
+        int[] kept = new int[graph.m];
+        int count = 0;
+        int[] seenFrom = new int[graph.n]; // seenFrom[v] == u + 1 once u's scan has met v
+        int[] best = new int[graph.n]; // Preferred edge from the scanning node to v
+        for (int u = 0; u < graph.n; u++) {
+            if ((u & Progress.INTERVAL_MASK) == 0) {
+                progress.update(u, graph.n); // Nodes scanned so far
+            }
+            int first = count; // This node's neighbors are recorded from here
+            for (int a = graph.offsets[u]; a < graph.offsets[u + 1]; a++) {
+                int v = graph.arcTarget[a], e = graph.arcEdge[a];
+                if (v <= u) {
+                    continue; // Each pair is handled from its smaller end; self-loops never join trees
+                }
+                if (seenFrom[v] != u + 1) { // First link between u and v
+                    seenFrom[v] = u + 1;
+                    best[v] = e;
+                    kept[count++] = v;
+                } else if (preferred(e, best[v])) {
+                    best[v] = e; // Cheaper (or equally cheap and wider) parallel link
+                }
+            }
+            for (int i = first; i < count; i++) {
+                kept[i] = best[kept[i]]; // Neighbor -> its chosen edge
+            }
+        }
+        this.edges = kept;
+        this.edgeCount = count;
+    }
+
+    // Prim on dense graphs, Kruskal otherwise.
+    MstResult solve(Progress progress) {
+        long pairs = (long) graph.n * (graph.n - 1) / 2; // Links in a complete graph
+        return 2L * edgeCount >= pairs && graph.n > 2 ? prim(progress) : kruskal(progress);
+    }
+
+    // Kruskal's algorithm: cheapest links first, skipping any that would close a cycle.
+    MstResult kruskal(Progress progress) {
+        long[] order = new long[edgeCount]; // (cost, edge id) packed so a primitive sort orders by cost
+        for (int i = 0; i < edgeCount; i++) {
+            int e = edges[i];
+            order[i] = ((long) graph.edgeCost[e] << 32) | e;
+        }
+        Arrays.sort(order);
+        for (int start = 0, end; start < order.length; start = end) { // Within each run of equal cost, wider first
+            long cost = order[start] >> 32;
+            end = start + 1;
+            while (end < order.length && order[end] >> 32 == cost) {
+                end++;
+            }
+            if (end - start > 1) {
+                for (int i = start; i < end; i++) {
+                    int e = (int) order[i];
+                    order[i] = ((long) ~graph.edgeBandwidth[e] << 32) | e; // ~bandwidth is smaller for wider links
+                }
+                Arrays.sort(order, start, end);
+                for (int i = start; i < end; i++) {
+                    order[i] = (cost << 32) | (int) order[i]; // Restore the (cost, edge id) packing
+                }
+            }
+        }
+
+        int[] parent = new int[graph.n]; // Disjoint sets over node ids
+        byte[] rank = new byte[graph.n]; // Upper bound on each root's tree height
+        for (int i = 0; i < graph.n; i++) {
+            parent[i] = i;
+        }
+        Builder tree = new Builder(graph.n);
+        for (int i = 0; i < order.length && tree.size() < graph.n - 1; i++) { // n - 1 links span everything
+            if ((i & Progress.INTERVAL_MASK) == 0) {
+                progress.update(i, order.length); // Links examined so far
+            }
+            int e = (int) order[i]; // Low 32 bits hold the edge id
+            int root1 = find(parent, graph.edgeU[e]), root2 = find(parent, graph.edgeV[e]);
+            if (root1 == root2) {
+                continue; // Both ends are already connected
+            }
+            if (rank[root1] < rank[root2]) { // Hang the shorter tree under the taller one
+                parent[root1] = root2;
+            } else {
+                parent[root2] = root1;
+                if (rank[root1] == rank[root2]) {
+                    rank[root1]++;
+                }
+            }
+            tree.add(e);
+        }
+        return tree.build();
+    }
+
+    // Prim's algorithm: repeatedly attach the outside node with the cheapest link into the tree.
+    MstResult prim(Progress progress) {
+        IndexedHeap heap = new IndexedHeap(graph.n);
+        boolean[] inTree = new boolean[graph.n];
+        int[] via = new int[graph.n]; // Edge that currently offers the cheapest link to each node
+        Builder tree = new Builder(graph.n);
+        int attached = 0;
+        for (int root = 0; root < graph.n; root++) {
+            if (inTree[root]) {
+                continue;
+            }
+            via[root] = -1; // Start of a new tree in the forest
+            heap.insertOrDecrease(root, Long.MIN_VALUE);
+            while (!heap.isEmpty()) {
+                int u = heap.pollMin();
+                inTree[u] = true;
+                if (via[u] != -1) {
+                    tree.add(via[u]);
+                }
+                if ((++attached & Progress.INTERVAL_MASK) == 0) {
+                    progress.update(attached, graph.n); // Nodes attached so far
+                }
+                for (int a = graph.offsets[u]; a < graph.offsets[u + 1]; a++) {
+                    int v = graph.arcTarget[a];
+                    if (inTree[v]) {
+                        continue; // Also skips self-loops
+                    }
+                    int e = graph.arcEdge[a];
+                    long key = key(e);
+                    if (!heap.contains(v) || key < key(via[v])) { // Parallel links compare like in ingestion
+                        via[v] = e;
+                        heap.insertOrDecrease(v, key);
+                    }
+                }
+            }
+        }
+        return tree.build();
+    }
+
+    // Orders links by cost, then by larger bandwidth.
+    private long key(int e) {
+        long widthRank = (long) Integer.MAX_VALUE - graph.edgeBandwidth[e]; // 0 .. 2^32 - 1, smaller is wider
+        return ((long) graph.edgeCost[e] << 32) | widthRank;
+    }
+
+    private boolean preferred(int e, int current) {
+        return key(e) < key(current);
+    }
+
+    // Find with path halving: every node on the path skips to its grandparent.
+    private static int find(int[] parent, int x) {
+        while (parent[x] != x) {
+            parent[x] = parent[parent[x]];
+            x = parent[x];
+        }
+        return x;
+    }
+
+    // Collects the chosen edge ids and their totals.
+    private final class Builder {
+        private final List<Edge> edges;
+        private long totalCost, totalBandwidth;
+
+        Builder(int n) {
+            edges = new ArrayList<>(Math.max(0, n - 1));
+        }
+
+        int size() {
+            return edges.size();
+        }
+
+        void add(int e) {
+            edges.add(new Edge(graph.names[graph.edgeU[e]], graph.names[graph.edgeV[e]], graph.edgeCost[e],
+                    graph.edgeBandwidth[e]));
+            totalCost += graph.edgeCost[e];
+            totalBandwidth += graph.edgeBandwidth[e];
+        }
+
+        MstResult build() {
+            return new MstResult(edges, totalCost, totalBandwidth);
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package Question5;
+
+import java.util.List;
+
+/*
+ * Minimum spanning tree (a forest if the network is disconnected) together with the total
+ * cost and total bandwidth of its links.
+ */
+
+final class MstResult {
+    final List<Edge> edges; // Links kept in the tree
+    final long totalCost; // Sum of link costs
+    final long totalBandwidth; // Sum of link bandwidths
+
+    MstResult(List<Edge> edges, long totalCost, long totalBandwidth) {
+        this.edges = edges;
+        this.totalCost = totalCost;
+        this.totalBandwidth = totalBandwidth;
+    }
+}
@@ -0,0 +1,503 @@
+package Question5;
+
+import java.io.IOException; // Reported for unreadable or malformed files
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/*
+ * Bulk import and export of a network topology, as CSV or as a compact binary file.
+ * Both formats are dictionary-encoded in memory: every distinct node name is stored once in
+ * names[] and the links are int columns of indexes into it, so Graph.addAll interns each name
+ * once and copies the columns instead of adding the links one by one.
+ * CSV: one link per line, "node1,node2,cost,bandwidth". Names holding a comma, quote or line
+ * break are quoted with doubled quotes inside; an optional header line and lines starting
+ * with '#' are skipped.
+ * Binary layout (little-endian):
+ *   int  magic      'Q5NW'
+ *   int  version    1
+ *   int  n          number of names
+ *   int  m          number of links
+ *   n x (int length, length bytes of UTF-8)     the name dictionary, by index
+ *   m x (int u, int v, int cost, int bandwidth) the links, u and v indexing the dictionary
+ * Both are streamed through a FileChannel and one reusable buffer. CSV is parsed straight from
+ * the bytes: names go into a NameTable keyed by their UTF-8 bytes, so a String is only created
+ * once per distinct name, and numbers are parsed and written without Strings. Progress is reported
+ * by bytes read or links written, and it can cancel the transfer.
+ */
+
+final class NetworkFile {
+    private static final int MAGIC = 0x574E3551; // "Q5NW" read as a little-endian int
+    private static final int VERSION = 1;
+    private static final int BUFFER_BYTES = 1 << 20; // Streaming buffer for the binary format
+    private static final int MAX_NAME_BYTES = 1 << 16; // Longest name accepted from a binary file
+
+    final String[] names; // Name dictionary
+    final int[] edgeU, edgeV, edgeCost, edgeBandwidth; // Links as indexes into names[]
+    final int edgeCount;
+
+    private NetworkFile(String[] names, int[] edgeU, int[] edgeV, int[] edgeCost, int[] edgeBandwidth, int edgeCount) {
+        this.names = names;
+        this.edgeU = edgeU;
+        this.edgeV = edgeV;
+        this.edgeCost = edgeCost;
+        this.edgeBandwidth = edgeBandwidth;
+        this.edgeCount = edgeCount;
+    }
+
+    // Reads a binary or CSV file, recognizing the binary format by its magic number.
+    static NetworkFile read(Path file, Progress progress) throws IOException {
+        try (FileChannel in = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer head = ByteBuffer.allocate(4).order(ByteOrder.LITTLE_ENDIAN);
+            in.read(head, 0); // A regular file returns all four bytes if it has them
+            head.flip();
+            if (head.remaining() == 4 && head.getInt() == MAGIC) {
+                return readBinary(file, progress);
+            }
+        }
+        return readCsv(file, progress);
+    }
+
+    // Writes the snapshot as CSV if the file name ends in ".csv", in the binary format otherwise.
+    static void write(Path file, CsrGraph graph, Progress progress) throws IOException {
+        if (file.getFileName().toString().toLowerCase().endsWith(".csv")) {
+            writeCsv(file, graph, progress);
+        } else {
+            writeBinary(file, graph, progress);
+        }
+    }
+
+    static NetworkFile readBinary(Path file, Progress progress) throws IOException {
+        try (FileChannel in = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = in.size();
+            ByteBuffer buf = ByteBuffer.allocateDirect(BUFFER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            buf.flip(); // Start empty; fill() reads on demand
+            fill(in, buf, 16, file);
+            if (buf.getInt() != MAGIC || buf.getInt() != VERSION) {
+                throw new IOException("Not a network file: " + file);
+            }
+            int n = buf.getInt(), m = buf.getInt();
+            // Every name takes at least its 4-byte length and every link 16 bytes, so counts the
+            // file is too small to hold are rejected before anything is allocated for them.
+            if (n < 0 || m < 0 || 16 + 4L * n + 16L * m > size) {
+                throw new IOException("Corrupt network file header (" + n + " names, " + m + " links in " + size
+                        + " bytes): " + file);
+            }
+            String[] names = new String[n];
+            byte[] bytes = new byte[256];
+            for (int i = 0; i < n; i++) {
+                fill(in, buf, 4, file);
+                int length = buf.getInt();
+                if (length < 0 || length > MAX_NAME_BYTES) {
+                    throw new IOException("Bad name length " + length + " in " + file);
+                }
+                if (length > bytes.length) {
+                    bytes = new byte[Math.max(length, bytes.length * 2)];
+                }
+                fill(in, buf, length, file);
+                buf.get(bytes, 0, length);
+                names[i] = new String(bytes, 0, length, StandardCharsets.UTF_8);
+            }
+            int[] u = new int[m], v = new int[m], cost = new int[m], bandwidth = new int[m];
+            for (int e = 0; e < m; e++) {
+                if (buf.remaining() < 16) {
+                    fill(in, buf, 16, file);
+                    progress.update(in.position() - buf.remaining(), size); // Bytes consumed so far
+                }
+                u[e] = buf.getInt();
+                v[e] = buf.getInt();
+                cost[e] = buf.getInt();
+                bandwidth[e] = buf.getInt();
+                if (u[e] < 0 || u[e] >= n || v[e] < 0 || v[e] >= n) {
+                    throw new IOException("Link " + e + " refers to a missing name in " + file);
+                }
+            }
+            if (buf.hasRemaining() || in.position() != size) {
+                throw new IOException("Trailing data after the links in " + file);
+            }
+            return new NetworkFile(names, u, v, cost, bandwidth, m);
+        }
+    }
+
+    static void writeBinary(Path file, CsrGraph graph, Progress progress) throws IOException {
+        try (FileChannel out = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buf = ByteBuffer.allocateDirect(BUFFER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            buf.putInt(MAGIC).putInt(VERSION).putInt(graph.n).putInt(graph.m);
+            for (int i = 0; i < graph.n; i++) {
+                byte[] name = graph.names[i].getBytes(StandardCharsets.UTF_8);
+                if (name.length > MAX_NAME_BYTES) {
+                    throw new IOException("Node name too long to export: " + graph.names[i].substring(0, 32) + "...");
+                }
+                if (buf.remaining() < 4 + name.length) {
+                    drain(out, buf);
+                }
+                buf.putInt(name.length).put(name);
+            }
+            for (int e = 0; e < graph.m; e++) {
+                if (buf.remaining() < 16) {
+                    drain(out, buf);
+                    progress.update(e, graph.m); // Links written so far
+                }
+                buf.putInt(graph.edgeU[e]).putInt(graph.edgeV[e]).putInt(graph.edgeCost[e])
+                        .putInt(graph.edgeBandwidth[e]);
+            }
+            drain(out, buf);
+        }
+    }
+
+    static NetworkFile readCsv(Path file, Progress progress) throws IOException {
+        try (FileChannel in = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = in.size();
+            byte[] bytes = new byte[BUFFER_BYTES];
+            ByteBuffer buf = ByteBuffer.wrap(bytes);
+            int pos = 0, limit = 0; // bytes[pos..limit) are read but not yet parsed
+            boolean eof = false;
+            long consumed = 0; // Bytes of the file parsed so far
+            NameTable table = new NameTable();
+            int[] u = new int[1024], v = new int[1024], cost = new int[1024], bandwidth = new int[1024];
+            int count = 0;
+            int lineNumber = 0;
+            boolean first = true; // The first record may be a header
+            Field[] fields = { new Field(), new Field(), new Field(), new Field() };
+            while (true) {
+                int end = recordEnd(bytes, pos, limit); // Index of the record's '\n', or -1
+                if (end == -1 && !eof) { // Record continues past the buffer: read more
+                    if (pos == 0 && limit == bytes.length) {
+                        throw new IOException("Line longer than " + BUFFER_BYTES + " bytes near line " + (lineNumber + 1)
+                                + " of " + file);
+                    }
+                    System.arraycopy(bytes, pos, bytes, 0, limit - pos);
+                    limit -= pos;
+                    pos = 0;
+                    buf.limit(bytes.length).position(limit);
+                    eof = in.read(buf) < 0;
+                    limit = buf.position();
+                    progress.update(consumed, size);
+                    continue;
+                }
+                if (end == -1 && pos == limit) {
+                    break; // End of file
+                }
+                int stop = end == -1 ? limit : end; // Last record may lack a line break
+                lineNumber++;
+                for (int i = pos; i < stop; i++) {
+                    if (bytes[i] == '\n') {
+                        lineNumber++; // Line breaks inside quoted names
+                    }
+                }
+                int next = end == -1 ? limit : end + 1;
+                consumed += next - pos;
+                if (stop > pos && bytes[stop - 1] == '\r') {
+                    stop--; // Windows line break
+                }
+                if (stop == pos || bytes[pos] == '#') {
+                    pos = next;
+                    continue; // Blank line or comment
+                }
+                if (split(bytes, pos, stop, fields) != 4) {
+                    throw new IOException("Expected node1,node2,cost,bandwidth at line " + lineNumber + " of " + file);
+                }
+                long c = fields[2].number(), b = fields[3].number();
+                if (c == BAD_NUMBER || b == BAD_NUMBER) {
+                    if (first) {
+                        first = false;
+                        pos = next;
+                        continue; // Header line
+                    }
+                    throw new IOException("Bad cost or bandwidth at line " + lineNumber + " of " + file);
+                }
+                first = false;
+                if (count == u.length) { // Grow the columns together
+                    int capacity = count * 2;
+                    u = Arrays.copyOf(u, capacity);
+                    v = Arrays.copyOf(v, capacity);
+                    cost = Arrays.copyOf(cost, capacity);
+                    bandwidth = Arrays.copyOf(bandwidth, capacity);
+                }
+                u[count] = table.add(fields[0]);
+                v[count] = table.add(fields[1]);
+                cost[count] = (int) c;
+                bandwidth[count] = (int) b;
+                count++;
+                pos = next;
+            }
+            return new NetworkFile(table.names(), u, v, cost, bandwidth, count);
+        }
+    }
+
+    static void writeCsv(Path file, CsrGraph graph, Progress progress) throws IOException {
+        byte[][] quoted = new byte[graph.n][]; // Each name is escaped and encoded once, not once per link
+        for (int i = 0; i < graph.n; i++) {
+            quoted[i] = quote(graph.names[i]).getBytes(StandardCharsets.UTF_8);
+        }
+        try (FileChannel out = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buf = ByteBuffer.allocate(BUFFER_BYTES);
+            buf.put("node1,node2,cost,bandwidth\n".getBytes(StandardCharsets.US_ASCII));
+            for (int e = 0; e < graph.m; e++) {
+                byte[] a = quoted[graph.edgeU[e]], b = quoted[graph.edgeV[e]];
+                if (buf.remaining() < a.length + b.length + 26) { // Two ints of up to 11 bytes plus separators
+                    drain(out, buf);
+                    progress.update(e, graph.m); // Links written so far
+                    if (buf.remaining() < a.length + b.length + 26) {
+                        throw new IOException("Node names too long to export");
+                    }
+                }
+                buf.put(a).put((byte) ',').put(b).put((byte) ',');
+                putInt(buf, graph.edgeCost[e]);
+                buf.put((byte) ',');
+                putInt(buf, graph.edgeBandwidth[e]);
+                buf.put((byte) '\n');
+            }
+            drain(out, buf);
+        }
+    }
+
+    // Index of the '\n' that ends the record starting at from (ignoring those inside quotes), or -1.
+    private static int recordEnd(byte[] bytes, int from, int limit) {
+        boolean quoted = false;
+        for (int i = from; i < limit; i++) {
+            byte c = bytes[i];
+            if (c == '"') {
+                quoted = !quoted; // A doubled quote flips twice
+            } else if (c == '\n' && !quoted) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    // Splits bytes[from..to) at commas outside quotes; returns the number of fields found.
+    private static int split(byte[] bytes, int from, int to, Field[] fields) {
+        int count = 0;
+        int p = from;
+        while (true) {
+            Field f = count < fields.length ? fields[count] : null;
+            if (p < to && bytes[p] == '"') { // Quoted: copy without the quotes, undoubling inner ones
+                int i = p + 1;
+                int n = 0;
+                byte[] copy = f == null ? null : f.scratch(to - p);
+                while (i < to) {
+                    if (bytes[i] == '"') {
+                        if (i + 1 < to && bytes[i + 1] == '"') {
+                            i++;
+                        } else {
+                            break; // Closing quote
+                        }
+                    }
+                    if (copy != null) {
+                        copy[n] = bytes[i];
+                    }
+                    n++;
+                    i++;
+                }
+                if (f != null) {
+                    f.set(copy, 0, n);
+                }
+                p = i + 1;
+                while (p < to && bytes[p] != ',') {
+                    p++; // Skip anything between the closing quote and the comma
+                }
+            } else {
+                int start = p;
+                while (p < to && bytes[p] != ',') {
+                    p++;
+                }
+                if (f != null) {
+                    f.set(bytes, start, p - start);
+                }
+            }
+            count++;
+            if (p >= to) {
+                return count;
+            }
+            p++; // Past the comma
+        }
+    }
+
+    // Writes the decimal digits of value.
+    private static void putInt(ByteBuffer buf, int value) {
+        long v = value;
+        if (v < 0) {
+            buf.put((byte) '-');
+            v = -v;
+        }
+        long div = 1;
+        while (div * 10 <= v) {
+            div *= 10;
+        }
+        for (; div > 0; div /= 10) {
+            buf.put((byte) ('0' + v / div % 10));
+        }
+    }
+
+    private static String quote(String name) {
+        if (name.indexOf(',') < 0 && name.indexOf('"') < 0 && name.indexOf('\n') < 0 && name.indexOf('\r') < 0
+                && !name.startsWith("#")) {
+            return name;
+        }
+        return '"' + name.replace("\"", "\"\"") + '"';
+    }
+
+    // Makes at least 'bytes' bytes readable in buf, reading more from the channel as needed.
+    private static void fill(FileChannel in, ByteBuffer buf, int bytes, Path file) throws IOException {
+        if (buf.remaining() >= bytes) {
+            return;
+        }
+        if (bytes > buf.capacity()) {
+            throw new IOException("Record larger than the read buffer in " + file);
+        }
+        buf.compact();
+        while (buf.position() < bytes) {
+            if (in.read(buf) < 0) {
+                throw new IOException("Truncated network file: " + file);
+            }
+        }
+        buf.flip();
+    }
+
+    private static void drain(FileChannel out, ByteBuffer buf) throws IOException {
+        buf.flip();
+        while (buf.hasRemaining()) {
+            out.write(buf);
+        }
+        buf.clear();
+    }
+
+    private static final long BAD_NUMBER = Long.MIN_VALUE; // Field is not an int
+
+    // One field of a CSV record: a range of the read buffer, or of a copy for quoted text.
+    private static final class Field {
+        byte[] bytes;
+        int offset, length;
+        private byte[] copy = new byte[64]; // Unquoted text of a quoted field
+
+        byte[] scratch(int capacity) {
+            if (copy.length < capacity) {
+                copy = new byte[Math.max(capacity, copy.length * 2)];
+            }
+            return copy;
+        }
+
+        void set(byte[] bytes, int offset, int length) {
+            this.bytes = bytes;
+            this.offset = offset;
+            this.length = length;
+        }
+
+        // The field as an int, ignoring surrounding spaces, or BAD_NUMBER.
+        long number() {
+            int i = offset, end = offset + length;
+            while (i < end && bytes[i] == ' ') {
+                i++;
+            }
+            while (end > i && bytes[end - 1] == ' ') {
+                end--;
+            }
+            boolean negative = i < end && bytes[i] == '-';
+            if (negative) {
+                i++;
+            }
+            if (i == end || end - i > 10) {
+                return BAD_NUMBER;
+            }
+            long value = 0;
+            for (; i < end; i++) {
+                int digit = bytes[i] - '0';
+                if (digit < 0 || digit > 9) {
+                    return BAD_NUMBER;
+                }
+                value = value * 10 + digit;
+            }
+            value = negative ? -value : value;
+            return value < Integer.MIN_VALUE || value > Integer.MAX_VALUE ? BAD_NUMBER : value;
+        }
+    }
+
+    // Dictionary of names seen in a CSV file, keyed by their raw UTF-8 bytes: an open-addressing
+    // table over one byte arena, so a repeated name costs a hash and a compare, not a String.
+    // A slot holds the name's hash next to its index, and one long holds its arena position,
+    // so a lookup touches the slot, that long and the bytes, and nothing else.
+    private static final class NameTable {
+        private byte[] arena = new byte[1 << 16]; // Name bytes, back to back
+        private int arenaSize;
+        private long[] extent = new long[1024]; // Per name: arena start << 32 | length
+        private int count;
+        private long[] slots = new long[2048]; // hash << 32 | (index + 1), or 0 for an empty slot
+
+        int add(Field f) {
+            int h = hash(f.bytes, f.offset, f.length);
+            int mask = slots.length - 1;
+            for (int i = h & mask;; i = (i + 1) & mask) { // Linear probing
+                long s = slots[i];
+                if (s == 0) {
+                    int k = insert(f);
+                    slots[i] = ((long) h << 32) | (k + 1);
+                    if (2 * count > slots.length) {
+                        rehash(); // Keep the table at most half full
+                    }
+                    return k;
+                }
+                if ((int) (s >>> 32) != h) {
+                    continue;
+                }
+                int k = (int) s - 1;
+                int start = (int) (extent[k] >>> 32), length = (int) extent[k];
+                if (length == f.length
+                        && Arrays.equals(arena, start, start + length, f.bytes, f.offset, f.offset + f.length)) {
+                    return k;
+                }
+            }
+        }
+
+        private int insert(Field f) {
+            if (count == extent.length) {
+                extent = Arrays.copyOf(extent, count * 2);
+            }
+            if (arenaSize + f.length > arena.length) {
+                arena = Arrays.copyOf(arena, Math.max(arenaSize + f.length, arena.length * 2));
+            }
+            System.arraycopy(f.bytes, f.offset, arena, arenaSize, f.length);
+            extent[count] = ((long) arenaSize << 32) | f.length;
+            arenaSize += f.length;
+            return count++;
+        }
+
+        private void rehash() {
+            long[] old = slots;
+            slots = new long[old.length * 2];
+            int mask = slots.length - 1;
+            for (long s : old) {
+                if (s != 0) {
+                    int i = (int) (s >>> 32) & mask;
+                    while (slots[i] != 0) {
+                        i = (i + 1) & mask;
+                    }
+                    slots[i] = s;
+                }
+            }
+        }
+
+        // Decodes each distinct name once.
+        String[] names() {
+            String[] names = new String[count];
+            for (int k = 0; k < count; k++) {
+                names[k] = new String(arena, (int) (extent[k] >>> 32), (int) extent[k], StandardCharsets.UTF_8);
+            }
+            return names;
+        }
+
+        private static int hash(byte[] bytes, int offset, int length) {
+            int h = 0x811C9DC5; // FNV-1a
+            for (int i = offset; i < offset + length; i++) {
+                h = (h ^ bytes[i]) * 0x01000193;
+            }
+            return h ^ (h >>> 16); // Spread high bits into the probe index
+        }
+    }
+}
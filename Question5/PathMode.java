@@ -0,0 +1,25 @@
+package Question5;
+
+/*
+ * Search strategies for point-to-point shortest-path queries.
+ * - DIJKSTRA explores outward from the start until the end node is settled.
+ * - BIDIRECTIONAL grows one search from each end and stops when they meet.
+ * - ALT is A* guided by landmark distances (triangle-inequality lower bounds).
+ */
+
+enum PathMode {
+    DIJKSTRA("Dijkstra"),
+    BIDIRECTIONAL("Bidirectional"),
+    ALT("A* (landmarks)");
+
+    private final String label; // Name shown in the GUI
+
+    PathMode(String label) {
+        this.label = label;
+    }
+
+    @Override
+    public String toString() {
+        return label;
+    }
+}
@@ -0,0 +1,18 @@
+package Question5;
+
+/*
+ * Result of a shortest-path query: the path cost (or -1 when there is no path) and the
+ * number of nodes the search settled, which shows how much of the network it explored.
+ */
+
+final class PathResult {
+    final long distance; // Total cost of the path, or -1 if the end cannot be reached
+    final int settled; // Nodes settled by the search
+    final PathMode mode; // Strategy that produced this result
+
+    PathResult(long distance, int settled, PathMode mode) {
+        this.distance = distance;
+        this.settled = settled;
+        this.mode = mode;
+    }
+}
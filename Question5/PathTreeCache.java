@@ -0,0 +1,202 @@
+package Question5;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/*
+ * Cache of single-source shortest-path distances (one tree per source), kept across edits.
+ * - Links are only ever appended to the graph, so a tree computed on a snapshot with m0 links
+ *   is still a valid upper bound on any later snapshot; only links m0.. are new.
+ * - A new link (u, v, c) can only shorten paths. The tree is repaired by seeding every end the
+ *   link improves and running Dijkstra from those seeds alone, so only nodes whose distance
+ *   actually drops are visited instead of the whole network. The repair happens on the next
+ *   query for that source, on the snapshot being queried, rather than inside addEdge.
+ * - When more than REPAIR_LIMIT links were added since the tree was computed (a bulk import,
+ *   say), the tree is simply computed again.
+ * - Trees are evicted least recently used first once their total size passes the byte budget.
+ *   A tree that alone is larger than the budget is computed but not kept.
+ * - Costs must be non-negative, as for every other search here.
+ * - A whole tree costs n longs and a search of the whole network, so callers only ask for one
+ *   when it is likely to be reused: wantsTree(s) is true for a source that already has a tree or
+ *   was asked about before (the last REMEMBERED_SOURCES first-time sources are remembered).
+ *   A one-off query is better served by a point-to-point search that stops at its end.
+ */
+
+final class PathTreeCache {
+    static final long DEFAULT_BUDGET_BYTES = 64L << 20; // Memory the cached trees may take
+    private static final int REPAIR_LIMIT = 1024; // More new links than this: recompute instead
+    private static final long INFINITE = Long.MAX_VALUE; // Distance of nodes not reached
+    private static final long TREE_OVERHEAD = 64; // Rough object and map entry size per tree
+    private static final int REMEMBERED_SOURCES = 4096; // First-time sources kept to spot repeats
+
+    // Distances from one source, valid for every snapshot whose first 'links' links it has seen.
+    private static final class Tree {
+        long[] dist;
+        int links;
+
+        long bytes() {
+            return TREE_OVERHEAD + 8L * dist.length;
+        }
+    }
+
+    private final long budget;
+    private final Map<Integer, Tree> trees = new LinkedHashMap<>(16, 0.75f, true); // Access order: LRU first
+    private long bytes; // Total size of the cached trees
+    private final Map<Integer, Boolean> askedOnce = new LinkedHashMap<Integer, Boolean>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, Boolean> eldest) {
+            return size() > REMEMBERED_SOURCES; // Forget the least recently asked source
+        }
+    }; // Sources queried once without a tree
+    private IndexedHeap heap = new IndexedHeap(0); // Shared by every computation; grows with the graph
+    private int settled; // Nodes settled by the last call to tree()
+
+    PathTreeCache(long budget) {
+        this.budget = budget;
+    }
+
+    // Distances from s on snapshot g: cached, repaired from a cached tree, or computed. The returned
+    // array may be longer than g.n and must not be changed; INFINITE marks nodes with no path.
+    long[] tree(CsrGraph g, int s, Progress progress) {
+        settled = 0;
+        if (heap.capacity() < g.n) {
+            heap = new IndexedHeap(g.n);
+        }
+        Tree tree = trees.get(s);
+        if (tree != null && tree.links > g.m) {
+            return compute(g, s, progress).dist; // Cached for a newer snapshot than this one: leave it alone
+        }
+        if (tree == null || g.m - tree.links > REPAIR_LIMIT) {
+            if (tree != null) {
+                remove(s);
+            }
+            tree = compute(g, s, progress);
+            keep(s, tree);
+            return tree.dist;
+        }
+        if (tree.links < g.m) {
+            try {
+                repair(g, tree, progress);
+            } catch (RuntimeException e) { // Cancelled part-way: the tree is no longer consistent
+                remove(s);
+                throw e;
+            }
+        }
+        return tree.dist;
+    }
+
+    // True if a query from s should go through tree(): s has a cached tree or was asked about
+    // before. Otherwise s is remembered, so the next query from it gets a tree.
+    boolean wantsTree(int s) {
+        if (trees.containsKey(s) || askedOnce.remove(s) != null) {
+            return true;
+        }
+        askedOnce.put(s, Boolean.TRUE);
+        return false;
+    }
+
+    // Nodes settled by the last call to tree(); 0 when the tree was cached and up to date.
+    int settledCount() {
+        return settled;
+    }
+
+    void clear() {
+        trees.clear();
+        askedOnce.clear();
+        bytes = 0;
+    }
+
+    private Tree compute(CsrGraph g, int s, Progress progress) {
+        Tree tree = new Tree();
+        tree.dist = new long[g.n];
+        Arrays.fill(tree.dist, INFINITE);
+        tree.dist[s] = 0;
+        heap.insertOrDecrease(s, 0);
+        try {
+            run(g, tree.dist, progress);
+        } finally {
+            heap.clear(); // Leftovers of a cancelled search
+        }
+        tree.links = g.m;
+        return tree;
+    }
+
+    // Brings a tree up to date with the links added since it was computed.
+    private void repair(CsrGraph g, Tree tree, Progress progress) {
+        long[] dist = tree.dist;
+        if (dist.length < g.n) { // Nodes added since: not reached yet
+            int old = dist.length;
+            dist = Arrays.copyOf(dist, g.n);
+            Arrays.fill(dist, old, g.n, INFINITE);
+            bytes += 8L * (g.n - old);
+            tree.dist = dist;
+        }
+        for (int e = tree.links; e < g.m; e++) { // Seed the ends each new link brings closer
+            int u = g.edgeU[e], v = g.edgeV[e];
+            long c = g.edgeCost[e];
+            seed(dist, u, v, c);
+            seed(dist, v, u, c);
+        }
+        try {
+            run(g, dist, progress);
+        } finally {
+            heap.clear();
+        }
+        tree.links = g.m;
+        trim();
+    }
+
+    private void seed(long[] dist, int from, int to, long cost) {
+        if (dist[from] != INFINITE && dist[from] + cost < dist[to]) {
+            dist[to] = dist[from] + cost;
+            heap.insertOrDecrease(to, dist[to]);
+        }
+    }
+
+    // Dijkstra from whatever is queued, lowering dist in place. With non-negative costs a node is
+    // only queued again when its distance drops, so the nodes visited are exactly those that improve.
+    private void run(CsrGraph g, long[] dist, Progress progress) {
+        while (!heap.isEmpty()) {
+            int u = heap.pollMin();
+            if ((++settled & Progress.INTERVAL_MASK) == 0) {
+                progress.update(settled, g.n);
+            }
+            long d = dist[u];
+            for (int a = g.offsets[u]; a < g.offsets[u + 1]; a++) {
+                int v = g.arcTarget[a];
+                long nd = d + g.arcCost[a];
+                if (nd < dist[v]) {
+                    dist[v] = nd;
+                    heap.insertOrDecrease(v, nd);
+                }
+            }
+        }
+    }
+
+    private void keep(int s, Tree tree) {
+        if (tree.bytes() > budget) {
+            return; // Would evict everything else and still not fit
+        }
+        trees.put(s, tree);
+        bytes += tree.bytes();
+        trim();
+    }
+
+    private void remove(int s) {
+        Tree tree = trees.remove(s);
+        if (tree != null) {
+            bytes -= tree.bytes();
+        }
+    }
+
+    // Evicts least recently used trees until the cache fits its budget again.
+    private void trim() {
+        Iterator<Tree> it = trees.values().iterator();
+        while (bytes > budget && it.hasNext()) {
+            bytes -= it.next().bytes();
+            it.remove();
+        }
+    }
+}
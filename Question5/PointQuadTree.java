@@ -0,0 +1,191 @@
+package Question5;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/*
+ * Point quadtree over node positions, used both for Barnes-Hut repulsion and for viewport culling.
+ * - Built top-down over an index array: each cell owns a contiguous range of order[], and its
+ *   points are partitioned in place into the four quadrants, so there is one int per point
+ *   plus a few arrays per cell and no per-node objects.
+ * - Cells with at most LEAF_SIZE points (or at MAX_DEPTH, for points on top of each other)
+ *   are leaves; the four children of a cell are stored next to each other.
+ * - Every cell keeps its point count and center of mass. repulsion() treats a cell as
+ *   one heavy point when it is small compared with its distance (size / distance < theta).
+ * - query() visits only the cells that overlap a rectangle, so drawing touches only what is on screen.
+ * The tree reads x[] and y[] while it is built and queried; the caller must not move points meanwhile.
+ */
+
+final class PointQuadTree {
+    private static final int LEAF_SIZE = 8; // Points a cell may hold before it is split
+    private static final int MAX_DEPTH = 24; // Stops splitting points that share a position
+
+    private final float[] x, y; // Point coordinates, by point id
+    private final int[] order; // Point ids grouped by cell
+    private int[] first = new int[64], end = new int[64]; // order[first..end) holds a cell's points
+    private int[] child = new int[64]; // Cell index of the first of four children, or -1 for a leaf
+    private float[] centerX = new float[64], centerY = new float[64], half = new float[64]; // Square bounds
+    private float[] massX = new float[64], massY = new float[64]; // Center of mass of the cell's points
+    private int cells; // Cells in use
+    private int[] stack = new int[64]; // Traversal stack shared by queries (single-threaded use)
+
+    PointQuadTree(float[] x, float[] y, int n) {
+        this.x = x;
+        this.y = y;
+        this.order = new int[n];
+        float minX = Float.MAX_VALUE, minY = Float.MAX_VALUE, maxX = -Float.MAX_VALUE, maxY = -Float.MAX_VALUE;
+        for (int i = 0; i < n; i++) {
+            order[i] = i;
+            minX = Math.min(minX, x[i]);
+            minY = Math.min(minY, y[i]);
+            maxX = Math.max(maxX, x[i]);
+            maxY = Math.max(maxY, y[i]);
+        }
+        float size = n == 0 ? 1 : Math.max(Math.max(maxX - minX, maxY - minY), 1e-3f); // Square root cell
+        cells = 1;
+        build(0, 0, n, minX + size / 2, minY + size / 2, size / 2 * 1.0001f, 0);
+    }
+
+    private void build(int cell, int from, int to, float cx, float cy, float h, int depth) {
+        first[cell] = from;
+        end[cell] = to;
+        centerX[cell] = cx;
+        centerY[cell] = cy;
+        half[cell] = h;
+        double sumX = 0, sumY = 0;
+        for (int i = from; i < to; i++) {
+            sumX += x[order[i]];
+            sumY += y[order[i]];
+        }
+        massX[cell] = to > from ? (float) (sumX / (to - from)) : cx;
+        massY[cell] = to > from ? (float) (sumY / (to - from)) : cy;
+        if (to - from <= LEAF_SIZE || depth == MAX_DEPTH) {
+            child[cell] = -1;
+            return;
+        }
+        int midY = partition(from, to, false, cy); // [from, midY) lies above the center line
+        int midLow = partition(from, midY, true, cx); // Then split each half left/right
+        int midHigh = partition(midY, to, true, cx);
+        int c = cells;
+        ensureCapacity(cells + 4);
+        cells += 4;
+        child[cell] = c;
+        float q = h / 2;
+        build(c, from, midLow, cx - q, cy - q, q, depth + 1);
+        build(c + 1, midLow, midY, cx + q, cy - q, q, depth + 1);
+        build(c + 2, midY, midHigh, cx - q, cy + q, q, depth + 1);
+        build(c + 3, midHigh, to, cx + q, cy + q, q, depth + 1);
+    }
+
+    // Moves the points below the split value to the front of order[from..to) and returns where the rest start.
+    private int partition(int from, int to, boolean byX, float split) {
+        float[] coord = byX ? x : y;
+        int lo = from, hi = to - 1;
+        while (lo <= hi) {
+            if (coord[order[lo]] < split) {
+                lo++;
+            } else {
+                int t = order[lo];
+                order[lo] = order[hi];
+                order[hi--] = t;
+            }
+        }
+        return lo;
+    }
+
+    private void ensureCapacity(int needed) {
+        if (needed <= first.length) {
+            return;
+        }
+        int capacity = Math.max(needed, first.length * 2);
+        first = Arrays.copyOf(first, capacity);
+        end = Arrays.copyOf(end, capacity);
+        child = Arrays.copyOf(child, capacity);
+        centerX = Arrays.copyOf(centerX, capacity);
+        centerY = Arrays.copyOf(centerY, capacity);
+        half = Arrays.copyOf(half, capacity);
+        massX = Arrays.copyOf(massX, capacity);
+        massY = Arrays.copyOf(massY, capacity);
+    }
+
+    // Calls visit for every point inside the rectangle.
+    void query(float minX, float minY, float maxX, float maxY, IntConsumer visit) {
+        if (order.length == 0) {
+            return;
+        }
+        int top = 0;
+        stack[top++] = 0;
+        while (top > 0) {
+            int c = stack[--top];
+            float h = half[c];
+            if (centerX[c] + h < minX || centerX[c] - h > maxX || centerY[c] + h < minY || centerY[c] - h > maxY) {
+                continue; // Cell lies outside the rectangle
+            }
+            if (child[c] == -1) {
+                for (int i = first[c]; i < end[c]; i++) {
+                    int p = order[i];
+                    if (x[p] >= minX && x[p] <= maxX && y[p] >= minY && y[p] <= maxY) {
+                        visit.accept(p);
+                    }
+                }
+            } else {
+                top = push(top, child[c]);
+            }
+        }
+    }
+
+    // Adds the repulsion k^2 / distance that all other points exert on point p to force[0], force[1].
+    void repulsion(int p, float theta, float k2, float[] force) {
+        float px = x[p], py = y[p];
+        float fx = 0, fy = 0;
+        float theta2 = theta * theta;
+        int top = 0;
+        stack[top++] = 0;
+        while (top > 0) {
+            int c = stack[--top];
+            int count = end[c] - first[c];
+            if (count == 0) {
+                continue;
+            }
+            if (child[c] == -1) { // Leaf: exact forces
+                for (int i = first[c]; i < end[c]; i++) {
+                    int q = order[i];
+                    if (q == p) {
+                        continue;
+                    }
+                    float dx = px - x[q], dy = py - y[q];
+                    float d2 = dx * dx + dy * dy;
+                    if (d2 < 1e-4f) { // Same position: push apart in a direction fixed by the ids
+                        dx = (p < q ? 0.01f : -0.01f);
+                        dy = ((p ^ q) & 1) == 0 ? 0.01f : -0.01f;
+                        d2 = 2e-4f;
+                    }
+                    fx += k2 * dx / d2; // Unit direction dx/d times magnitude k^2/d
+                    fy += k2 * dy / d2;
+                }
+                continue;
+            }
+            float dx = px - massX[c], dy = py - massY[c];
+            float d2 = dx * dx + dy * dy;
+            float size = 2 * half[c];
+            if (size * size < theta2 * d2) { // Far enough: the whole cell acts as one point
+                fx += count * k2 * dx / d2;
+                fy += count * k2 * dy / d2;
+            } else {
+                top = push(top, child[c]);
+            }
+        }
+        force[0] += fx;
+        force[1] += fy;
+    }
+
+    private int push(int top, int firstChild) {
+        if (top + 4 > stack.length) {
+            stack = Arrays.copyOf(stack, stack.length * 2);
+        }
+        for (int k = 0; k < 4; k++) {
+            stack[top++] = firstChild + k;
+        }
+        return top;
+    }
+}
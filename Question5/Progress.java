@@ -0,0 +1,18 @@
+package Question5;
+
+/*
+ * Callback the long-running engines call every few thousand steps with how far they are.
+ * It is also their cancellation point: an implementation may throw
+ * java.util.concurrent.CancellationException to abandon the computation (the GUI does this when
+ * its SwingWorker is cancelled or its thread is interrupted). NONE ignores the reports.
+ */
+
+@FunctionalInterface
+interface Progress {
+    Progress NONE = (done, total) -> {
+    };
+
+    int INTERVAL_MASK = 4095; // Engines report when (steps & INTERVAL_MASK) == 0
+
+    void update(long done, long total);
+}
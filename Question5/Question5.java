@@ -1,18 +1,50 @@
 package Question5;
 
 import java.awt.*;
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.*;
 import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
 import javax.swing.*;
 /*
  * Network Optimizer Program:
  * --------------------------
  * This GUI-based application allows users to build and visualize a network graph.
  * - Users add nodes (representing servers/clients) and edges (connections with cost and bandwidth).
- * - The graph is drawn on a custom panel.
- * - Users can "optimize" the network by computing a Minimum Spanning Tree (MST) (placeholder implementation)
- *   and can also find the shortest path based on inverse bandwidth (again, a placeholder).
+ * - The graph is drawn on a custom panel (GraphPanel) with a force-directed layout that is
+ *   computed in the background, and can be panned and zoomed.
+ * - Users can "optimize" the network by computing a Minimum Spanning Tree (MST) with MstEngine, which
+ *   drops parallel links and picks Kruskal or Prim by density, and can also find the shortest path by cost.
+ * - "Find Route" uses the bandwidth of each link: widest (max-bottleneck) path, lowest latency
+ *   with latency = cost / bandwidth, or cheapest path using only links with at least the bandwidth
+ *   typed in the Bandwidth field. The full path is printed.
  * - Results such as total cost and latency are displayed on the GUI.
+ * - Internally, node names are mapped to dense int ids once, and the algorithms run on an
+ *   immutable compressed-sparse-row snapshot of the graph (CsrGraph) built from int arrays.
+ * - Shortest paths can be found with Dijkstra, bidirectional Dijkstra, or A* with landmarks (ALT);
+ *   the number of nodes each search settles is reported so the strategies can be compared.
+ *   Dijkstra stops at the end node the first time a start is queried; a start queried again gets
+ *   its whole tree cached (PathTreeCache, LRU within a memory budget). After "Add Connection" a
+ *   cached tree is not thrown away: the next query from that start repairs it from the new links
+ *   on the new snapshot, so repeated queries settle few or no nodes.
+ * - For many queries at once, Graph.findShortestPaths answers a batch of pairs with one search
+ *   per distinct start, and Graph.allPairsDistances computes the full cost matrix in parallel
+ *   (DistanceMatrix), which can be saved to disk and mapped back in.
+ * - "Optimize Network", "Find Shortest Path" and "Find Route" run in a SwingWorker (GraphTask) on
+ *   the snapshot taken when the button was pressed, so the window stays responsive and edits made
+ *   meanwhile cannot race with them. The progress bar follows the engines' Progress reports, "Cancel"
+ *   stops the task at the next report, and output is published in chunks that are appended
+ *   to the text area in batches.
+ * - "Import..." loads a topology from CSV or the compact binary format (NetworkFile) and adds it
+ *   with one bulk append to a copy of the graph, all in the background; the EDT only swaps in the
+ *   new graph, prints one output line and starts one relayout;
+ *   "Export..." saves the current network in either format.
+ * - "java Question5.Question5 --check [graphs] [seed]" runs no GUI: it checks every search mode
+ *   and the MST engine against the plain reference implementations on random graphs.
  */
 
 class Question5 extends JFrame {
@@ -20,6 +52,11 @@ class Question5 extends JFrame {
     private JTextArea outputArea;
     private JTextField nodeField1, nodeField2, costField, bandwidthField;
     private GraphPanel graphPanel; // Panel to display the graph
+    private JComboBox<PathMode> pathModeBox; // Selects the shortest-path search strategy
+    private JComboBox<RouteMode> routeModeBox; // Selects the bandwidth-aware routing objective
+    private JButton optimizeButton, shortestPathButton, routeButton, importButton, exportButton, cancelButton; // Disabled/enabled while a task runs
+    private JProgressBar progressBar; // Progress of the running background task
+    private GraphTask running; // Background task in progress, or null
 
     public Question5() {
         setTitle("Network Optimization"); // Set the title of the JFrame
@@ -38,8 +75,17 @@ class Question5 extends JFrame {
         costField = new JTextField(5); // Create a text field for the cost of the edge
         bandwidthField = new JTextField(5); // Create a text field for the bandwidth of the edge
         JButton addEdgeButton = new JButton("Add Connection"); // Create a button to add an edge
-        JButton optimizeButton = new JButton("Optimize Network"); // Create a button to optimize the network
-        JButton shortestPathButton = new JButton("Find Shortest Path"); // Create a button to find the shortest path
+        optimizeButton = new JButton("Optimize Network"); // Create a button to optimize the network
+        shortestPathButton = new JButton("Find Shortest Path"); // Create a button to find the shortest path
+        pathModeBox = new JComboBox<>(PathMode.values()); // Search strategy used by "Find Shortest Path"
+        routeButton = new JButton("Find Route"); // Create a button for bandwidth-aware routing
+        importButton = new JButton("Import..."); // Load links from a CSV or binary file
+        exportButton = new JButton("Export..."); // Save the network as CSV or binary
+        routeModeBox = new JComboBox<>(RouteMode.values()); // Objective used by "Find Route"
+        cancelButton = new JButton("Cancel"); // Stops the running background task
+        cancelButton.setEnabled(false);
+        progressBar = new JProgressBar(0, 100); // Percent done of the running background task
+        progressBar.setStringPainted(true);
 
         // Add labels and fields for node1, node2, cost, and bandwidth to the control
         // panel
@@ -54,6 +100,13 @@ class Question5 extends JFrame {
         controlPanel.add(addEdgeButton); // Add the "Add Connection" button
         controlPanel.add(optimizeButton); // Add the "Optimize Network" button
         controlPanel.add(shortestPathButton); // Add the "Find Shortest Path" button
+        controlPanel.add(pathModeBox); // Add the search strategy selector
+        controlPanel.add(routeButton); // Add the "Find Route" button
+        controlPanel.add(routeModeBox); // Add the routing objective selector
+        controlPanel.add(importButton); // Add the "Import..." button
+        controlPanel.add(exportButton); // Add the "Export..." button
+        controlPanel.add(cancelButton); // Add the "Cancel" button
+        controlPanel.add(progressBar); // Add the progress bar
 
         // Add the graph panel (where the graph will be drawn) to the JFrame
         graphPanel = new GraphPanel(); // Create the graph panel
@@ -65,14 +118,24 @@ class Question5 extends JFrame {
         addEdgeButton.addActionListener(e -> addEdge()); // Action for adding an edge
         optimizeButton.addActionListener(e -> optimizeNetwork()); // Action for optimizing the network
         shortestPathButton.addActionListener(e -> findShortestPath()); // Action for finding the shortest path
+        routeButton.addActionListener(e -> findRoute()); // Action for bandwidth-aware routing
+        importButton.addActionListener(e -> importNetwork()); // Action for bulk loading a topology
+        exportButton.addActionListener(e -> exportNetwork()); // Action for saving the topology
+        cancelButton.addActionListener(e -> cancelTask()); // Action for stopping the background task
     }
 
     private void addEdge() {
         String node1 = nodeField1.getText(); // Get the first node name from the text field
         String node2 = nodeField2.getText(); // Get the second node name from the text field
-        int cost = Integer.parseInt(costField.getText()); // Parse the cost from the text field
-        int bandwidth = Integer.parseInt(bandwidthField.getText()); // Parse the bandwidth from the text field
-        graph.addEdge(node1, node2, cost, bandwidth); // Add the edge to the graph
+        int cost, bandwidth;
+        try {
+            cost = Integer.parseInt(costField.getText()); // Parse the cost from the text field
+            bandwidth = Integer.parseInt(bandwidthField.getText()); // Parse the bandwidth from the text field
+            graph.addEdge(node1, node2, cost, bandwidth); // Add the edge to the graph
+        } catch (IllegalArgumentException e) { // Not a number, or a negative cost
+            outputArea.append("\nNot added: " + e.getMessage() + "\n");
+            return;
+        }
         outputArea.append(
                 "Added connection: " + node1 + " - " + node2 + " (Cost: " + cost + ", Bandwidth: " + bandwidth + ")\n"); // Append
                                                                                                                          // the
@@ -82,188 +145,627 @@ class Question5 extends JFrame {
                                                                                                                          // output
                                                                                                                          // area
 
-        // Repaint the graph after adding an edge
-        graphPanel.repaint(); // Repaint the graph panel to reflect the added edge
+        // Lay out the graph again after adding an edge
+        graphPanel.graphChanged(graph.snapshot()); // The layout keeps existing positions and places the new nodes
     }
 
     private void optimizeNetwork() {
-        List<Edge> mst = graph.findMinimumSpanningTree(); // Get the minimum spanning tree (MST)
-        outputArea.append("\nOptimized Network (Minimum Cost Spanning Tree):\n"); // Print optimization heading
-        for (Edge edge : mst) {
-            outputArea.append(edge.node1 + " - " + edge.node2 + " (Cost: " + edge.cost + ")\n"); // Print each edge in
-                                                                                                 // the MST
+        CsrGraph snapshot = graph.snapshot(); // The task works on the network as it is now
+        startTask(new GraphTask() {
+            @Override
+            protected Void doInBackground() {
+                MstResult mst = graph.optimizeNetwork(snapshot, this); // Get the minimum spanning tree (MST) and its totals
+                StringBuilder text = new StringBuilder("\nOptimized Network (Minimum Cost Spanning Tree, version "
+                        + snapshot.version + "):\n"); // Print optimization heading
+                for (Edge edge : mst.edges) {
+                    text.append(edge.node1).append(" - ").append(edge.node2).append(" (Cost: ").append(edge.cost)
+                            .append(", Bandwidth: ").append(edge.bandwidth).append(")\n"); // Print each edge in the MST
+                    if (text.length() >= CHUNK_CHARS) { // Hand a chunk to the EDT
+                        publish(text.toString());
+                        text.setLength(0);
+                    }
+                }
+                text.append("Total cost: ").append(mst.totalCost).append(", total bandwidth: ")
+                        .append(mst.totalBandwidth).append('\n');
+                publish(text.toString());
+                return null;
+            }
+        });
+    }
+
+    private void findShortestPath() {
+        String start = nodeField1.getText(); // Get the starting node from the text field
+        String end = nodeField2.getText(); // Get the ending node from the text field
+        PathMode mode = (PathMode) pathModeBox.getSelectedItem(); // Get the chosen search strategy
+        CsrGraph snapshot = graph.snapshot(); // The task works on the network as it is now
+        startTask(new GraphTask() {
+            @Override
+            protected Void doInBackground() {
+                PathResult result = graph.findShortestPath(snapshot, start, end, mode, this); // Find the shortest path
+                publish("\nShortest path from " + start + " to " + end + " is " + result.distance + " units (" + mode
+                        + ", " + result.settled + " nodes settled, version " + snapshot.version + ").\n"); // Print the result and the search effort
+                return null;
+            }
+        });
+    }
+
+    // Reads a CSV or binary topology in the background, then adds all of it to the graph at once:
+    // one append to the output area and one relayout, not one per link.
+    private void importNetwork() {
+        JFileChooser chooser = new JFileChooser();
+        if (chooser.showOpenDialog(this) != JFileChooser.APPROVE_OPTION) {
+            return;
         }
+        Path file = chooser.getSelectedFile().toPath();
+        CsrGraph base = graph.snapshot(); // The import is added to the network as it is now
+        startTask(new GraphTask() {
+            private NetworkFile data; // Read in the background
+            private Graph merged; // Copy of base plus the import, built in the background
+
+            @Override
+            protected Void doInBackground() throws IOException {
+                data = NetworkFile.read(file, this);
+                merged = Graph.copyOf(base);
+                merged.addAll(data); // Bulk append off the EDT
+                merged.snapshot(); // The CSR rebuild for the whole import happens here too
+                return null;
+            }
 
-        // Repaint the graph after optimizing the network
-        graphPanel.repaint(); // Repaint the graph panel to show the optimized network
+            @Override
+            protected void succeeded() {
+                merged.appendLinks(graph, base.m); // Connections added while the import ran (usually none)
+                graph = merged; // Swap in the imported network
+                outputArea.append("\nImported " + data.edgeCount + " connections between " + data.names.length
+                        + " nodes from " + file.getFileName() + ".\n");
+                graphPanel.graphChanged(graph.snapshot()); // Lay out the whole import once
+            }
+        });
     }
 
-    private void findShortestPath() {
+    // Writes the current snapshot as CSV (".csv" names) or in the binary format (anything else).
+    private void exportNetwork() {
+        JFileChooser chooser = new JFileChooser();
+        if (chooser.showSaveDialog(this) != JFileChooser.APPROVE_OPTION) {
+            return;
+        }
+        Path file = chooser.getSelectedFile().toPath();
+        CsrGraph snapshot = graph.snapshot(); // Export the network as it is now
+        startTask(new GraphTask() {
+            @Override
+            protected Void doInBackground() throws IOException {
+                NetworkFile.write(file, snapshot, this);
+                publish("\nExported " + snapshot.m + " connections between " + snapshot.n + " nodes to "
+                        + file.getFileName() + ".\n");
+                return null;
+            }
+        });
+    }
+
+    // Runs one background task at a time; the task buttons are disabled until it finishes.
+    private void startTask(GraphTask task) {
+        running = task;
+        setBusy(true);
+        task.addPropertyChangeListener(e -> {
+            if ("progress".equals(e.getPropertyName())) {
+                progressBar.setValue((Integer) e.getNewValue()); // Follow the task's percent done
+            }
+        });
+        task.execute();
+    }
+
+    private void cancelTask() {
+        if (running != null) {
+            running.cancel(true); // Interrupts the worker; the engines stop at their next progress report
+        }
+    }
+
+    private void setBusy(boolean busy) {
+        optimizeButton.setEnabled(!busy);
+        shortestPathButton.setEnabled(!busy);
+        routeButton.setEnabled(!busy);
+        importButton.setEnabled(!busy);
+        exportButton.setEnabled(!busy);
+        cancelButton.setEnabled(busy);
+        progressBar.setValue(0);
+    }
+
+    private void findRoute() {
         String start = nodeField1.getText(); // Get the starting node from the text field
         String end = nodeField2.getText(); // Get the ending node from the text field
-        int distance = graph.findShortestPath(start, end); // Find the shortest path between the nodes
-        outputArea.append("\nShortest path from " + start + " to " + end + " is " + distance + " units.\n"); // Print
-                                                                                                             // the
-                                                                                                             // result
+        RouteMode mode = (RouteMode) routeModeBox.getSelectedItem(); // Get the chosen objective
+        String minText = bandwidthField.getText().trim(); // Bandwidth field doubles as the minimum bandwidth
+        int minBandwidth = minText.isEmpty() ? 0 : Integer.parseInt(minText);
+        CsrGraph snapshot = graph.snapshot(); // The task works on the network as it is now
+        startTask(new GraphTask() {
+            @Override
+            protected Void doInBackground() {
+                RouteResult route = graph.findRoute(snapshot, start, end, mode, minBandwidth, this); // Find the best route
+                if (!route.found()) {
+                    publish("\nNo route from " + start + " to " + end + " (" + mode + ").\n");
+                    return null;
+                }
+                String measure = mode == RouteMode.WIDEST ? "bottleneck bandwidth"
+                        : mode == RouteMode.MIN_LATENCY ? "latency" : "cost";
+                publish("\n" + mode + " from " + start + " to " + end + ": " + String.join(" -> ", route.path)
+                        + " (" + measure + ": " + String.format("%.3f", route.value) + ", version "
+                        + snapshot.version + ")\n"); // Print the path and its value
+                return null;
+            }
+        });
     }
 
     public static void main(String[] args) {
+        if (args.length > 0 && args[0].equals("--check")) { // Engine self-check instead of the GUI
+            EngineCheck.run(args.length > 1 ? Integer.parseInt(args[1]) : 300,
+                    args.length > 2 ? Long.parseLong(args[2]) : 1);
+            return;
+        }
         SwingUtilities.invokeLater(() -> new Question5().setVisible(true)); // Launch the GUI
     }
 
-    // Custom JPanel for drawing the graph
-    class GraphPanel extends JPanel {
+    // Cross-checks the engines against the plain reference implementations kept in Graph:
+    // - every PathMode of Graph.findShortestPath, the batch Graph.findShortestPaths and the
+    //   CHEAPEST_WITH_BANDWIDTH route with no bandwidth limit, against Graph.shortestDistance
+    //   (Dijkstra with a PriorityQueue and lazy deletion);
+    // - Graph.optimizeNetwork (MstEngine) against Graph.minimumSpanningTree (Kruskal over every
+    //   link): same total cost and same number of tree links.
+    // Graphs are random, with parallel links, self-loops, zero costs and disconnected parts, and
+    // links are added between queries so cached Dijkstra trees are repaired as well as computed.
+    // Prints the number of checks, or exits with status 1 on the first mismatch.
+    private static final class EngineCheck {
+        private int checks; // Comparisons made so far
+
+        static void run(int graphs, long seed) {
+            EngineCheck check = new EngineCheck();
+            Random random = new Random(seed);
+            for (int i = 0; i < graphs; i++) {
+                check.graph(random);
+            }
+            System.out.println("OK: " + check.checks + " checks on " + graphs + " random graphs (seed " + seed + ")");
+        }
+
+        // Builds one random graph and checks queries on it, adding links in between.
+        private void graph(Random random) {
+            int n = 2 + random.nextInt(random.nextBoolean() ? 12 : 200); // Small dense or larger sparse
+            int links = random.nextInt(3 * n);
+            Graph graph = new Graph();
+            for (int i = 0; i < links; i++) {
+                addRandomLink(graph, random, n);
+            }
+            for (int round = 0; round < 4; round++) {
+                CsrGraph g = graph.snapshot();
+                if (g.n > 1) {
+                    shortestPaths(graph, g, random);
+                }
+                spanningTree(graph, g);
+                for (int i = random.nextInt(4); i > 0; i--) { // A few edits: cached trees get repaired
+                    addRandomLink(graph, random, n);
+                }
+            }
+        }
+
+        private void shortestPaths(Graph graph, CsrGraph g, Random random) {
+            int queries = 20;
+            String[] starts = new String[queries], ends = new String[queries];
+            long[] expected = new long[queries];
+            for (int q = 0; q < queries; q++) {
+                int s = random.nextInt(g.n), t = random.nextInt(g.n);
+                if (random.nextInt(4) == 0) {
+                    s = random.nextInt(Math.min(g.n, 3)); // Repeat a few sources so the tree cache is hit
+                }
+                starts[q] = g.names[s];
+                ends[q] = g.names[t];
+                expected[q] = Graph.shortestDistance(g, s, t);
+                for (PathMode mode : PathMode.values()) {
+                    expect(graph.findShortestPath(starts[q], ends[q], mode).distance, expected[q],
+                            mode + " " + starts[q] + " -> " + ends[q]);
+                }
+            }
+            long[] batch = graph.findShortestPaths(starts, ends);
+            for (int q = 0; q < queries; q++) {
+                expect(batch[q], expected[q], "batch " + starts[q] + " -> " + ends[q]);
+                RouteResult route = graph.findRoute(starts[q], ends[q], RouteMode.CHEAPEST_WITH_BANDWIDTH, 0);
+                expect(route.found() ? (long) route.value : -1, expected[q],
+                        "cheapest route " + starts[q] + " -> " + ends[q]); // Links all have bandwidth >= 1
+            }
+        }
+
+        private void spanningTree(Graph graph, CsrGraph g) {
+            List<Edge> reference = Graph.minimumSpanningTree(g);
+            long referenceCost = 0;
+            for (Edge edge : reference) {
+                referenceCost += edge.cost;
+            }
+            MstResult mst = graph.optimizeNetwork();
+            expect(mst.totalCost, referenceCost, "MST cost on " + g.n + " nodes");
+            expect(mst.edges.size(), reference.size(), "MST links on " + g.n + " nodes");
+        }
+
+        private static void addRandomLink(Graph graph, Random random, int n) {
+            int u = random.nextInt(n), v = random.nextInt(n); // u == v gives a self-loop
+            graph.addEdge("n" + u, "n" + v, random.nextInt(5) == 0 ? 0 : random.nextInt(100), 1 + random.nextInt(50));
+        }
+
+        private void expect(long actual, long expected, String what) {
+            checks++;
+            if (actual != expected) {
+                System.out.println("MISMATCH " + what + ": expected " + expected + ", got " + actual);
+                System.exit(1);
+            }
+        }
+    }
+
+    // Background computation on a graph snapshot. It is the Progress the engines report to: each
+    // report updates the progress bar and throws CancellationException once the task is cancelled.
+    // Text published from doInBackground is appended to the output area once per batch.
+    abstract class GraphTask extends SwingWorker<Void, String> implements Progress {
+        static final int CHUNK_CHARS = 64 * 1024; // Size of the text chunks handed to the EDT
+
+        @Override
+        public void update(long done, long total) {
+            if (isCancelled() || Thread.currentThread().isInterrupted()) {
+                throw new CancellationException(); // Unwinds out of the engine's loop
+            }
+            setProgress((int) Math.min(100, done * 100 / Math.max(1, total)));
+        }
+
+        @Override
+        protected void process(List<String> chunks) {
+            if (isCancelled()) {
+                return; // Drop output that arrives after "Cancel"
+            }
+            StringBuilder text = new StringBuilder();
+            for (String chunk : chunks) {
+                text.append(chunk);
+            }
+            outputArea.append(text.toString()); // One append for the whole batch
+        }
+
         @Override
-        protected void paintComponent(Graphics g) {
-            super.paintComponent(g); // Call the superclass's paint method to ensure proper rendering
+        protected void done() {
+            if (running == this) {
+                running = null;
+                setBusy(false);
+            }
+            try {
+                get(); // Rethrows what went wrong in the background
+                succeeded();
+            } catch (CancellationException e) {
+                outputArea.append("\nCancelled.\n");
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (ExecutionException e) {
+                outputArea.append("\nFailed: " + e.getCause() + "\n");
+            }
+            graphPanel.repaint(); // Repaint the graph panel to show the result
+        }
 
-            // Set graphics properties
-            g.setColor(Color.BLACK); // Set the drawing color to black
-            // Call the graph's drawing method to visualize nodes and edges
-            graph.drawGraph(g); // Draw the graph on the panel
+        // Runs on the EDT after doInBackground returned normally.
+        protected void succeeded() {
         }
     }
 }
 
 class Graph {
-    private Map<String, List<Edge>> adjList = new HashMap<>(); // Adjacency list for storing the graph
+    // Interning layer: each node name is mapped to a dense int id once, when it is first seen.
+    // The map is concurrent because snapshots share it with searches running on other threads.
+    private final Map<String, Integer> ids = new ConcurrentHashMap<>(); // Node name -> id
+    private final List<String> names = new ArrayList<>(); // Node id -> name
+
+    // Canonical edge list: one entry per connection, in the order they were added.
+    private int[] edgeU = new int[16], edgeV = new int[16], edgeCost = new int[16], edgeBandwidth = new int[16];
+    private int edgeCount; // Number of edges stored
+
+    private long version; // Incremented on every edit
+    private CsrGraph snapshot; // CSR view of the current version (null until needed)
+    // The cached engines below are only used inside synchronized methods.
+    private MstEngine mstEngine; // Canonical edges of the current snapshot for MST queries
+    private ShortestPathEngine pathEngine; // Reusable searches for the current snapshot
+    private Landmarks landmarks; // ALT landmarks for the current snapshot (computed on first ALT query)
+    private RoutingEngine routingEngine; // Reusable bandwidth-aware routing for the current snapshot
+    // Dijkstra distances per source, kept across edits and repaired when links are added
+    private final PathTreeCache pathTrees = new PathTreeCache(PathTreeCache.DEFAULT_BUDGET_BYTES);
 
     public void addEdge(String node1, String node2, int cost, int bandwidth) {
-        adjList.putIfAbsent(node1, new ArrayList<>()); // Add the first node if it does not exist
-        adjList.putIfAbsent(node2, new ArrayList<>()); // Add the second node if it does not exist
-        adjList.get(node1).add(new Edge(node1, node2, cost, bandwidth)); // Add the edge to the adjacency list for node1
-        adjList.get(node2).add(new Edge(node2, node1, cost, bandwidth)); // Add the edge to the adjacency list for node2
+        checkCost(cost);
+        int u = intern(node1); // Add the first node if it does not exist
+        int v = intern(node2); // Add the second node if it does not exist
+        ensureEdgeCapacity(edgeCount + 1);
+        edgeU[edgeCount] = u; // Store the connection once; the CSR view has both directions
+        edgeV[edgeCount] = v;
+        edgeCost[edgeCount] = cost;
+        edgeBandwidth[edgeCount] = bandwidth;
+        edgeCount++;
+        version++;
+        snapshot = null; // The CSR view is rebuilt on the next query
     }
 
-    public List<Edge> findMinimumSpanningTree() {
-        List<Edge> edges = new ArrayList<>(); // List to store all edges
-        for (List<Edge> list : adjList.values()) {
-            edges.addAll(list); // Add all edges from the adjacency list to the edges list
+    // Adds every link of an imported file in one go: each name is interned once and the edge
+    // arrays grow once, instead of two name lookups and a possible copy per link.
+    public void addAll(NetworkFile data) {
+        for (int e = 0; e < data.edgeCount; e++) { // Reject the whole file before changing anything
+            checkCost(data.edgeCost[e]);
         }
-        edges.sort(Comparator.comparingInt(e -> e.cost)); // Sort the edges by cost in ascending order
+        int[] id = new int[data.names.length]; // File index -> graph id
+        for (int i = 0; i < id.length; i++) {
+            id[i] = intern(data.names[i]);
+        }
+        ensureEdgeCapacity(edgeCount + data.edgeCount);
+        for (int e = 0; e < data.edgeCount; e++) {
+            edgeU[edgeCount + e] = id[data.edgeU[e]];
+            edgeV[edgeCount + e] = id[data.edgeV[e]];
+        }
+        System.arraycopy(data.edgeCost, 0, edgeCost, edgeCount, data.edgeCount);
+        System.arraycopy(data.edgeBandwidth, 0, edgeBandwidth, edgeCount, data.edgeCount);
+        edgeCount += data.edgeCount;
+        version++;
+        snapshot = null; // One rebuild for the whole import
+    }
 
-        List<Edge> mst = new ArrayList<>(); // List to store the minimum spanning tree
-        UnionFind uf = new UnionFind(adjList.keySet()); // Create a UnionFind structure for disjoint sets
-        for (Edge edge : edges) {
-            if (uf.union(edge.node1, edge.node2)) { // If the nodes of the edge are not in the same set, add the edge to
-                                                    // the MST
-                mst.add(edge); // Add the edge to the MST
-            }
+    // Every search here (Dijkstra, ALT, path-tree repair, label-setting routing) settles a node for
+    // good, which is only right when no link cost is negative; links are checked once, here.
+    static void checkCost(int cost) {
+        if (cost < 0) {
+            throw new IllegalArgumentException("Link costs must be non-negative, got " + cost);
         }
-        return mst; // Return the minimum spanning tree
+    }
+
+    // Editable copy of a snapshot: the same ids and the same links in the same order.
+    static Graph copyOf(CsrGraph g) {
+        Graph copy = new Graph();
+        for (String name : g.names) {
+            copy.intern(name);
+        }
+        copy.ensureEdgeCapacity(g.m);
+        System.arraycopy(g.edgeU, 0, copy.edgeU, 0, g.m);
+        System.arraycopy(g.edgeV, 0, copy.edgeV, 0, g.m);
+        System.arraycopy(g.edgeCost, 0, copy.edgeCost, 0, g.m);
+        System.arraycopy(g.edgeBandwidth, 0, copy.edgeBandwidth, 0, g.m);
+        copy.edgeCount = g.m;
+        copy.version = g.version;
+        return copy;
+    }
+
+    // Appends the links 'other' holds after its first 'from', by node name; used to carry over
+    // edits made to a graph while a copy of it was being extended in the background.
+    void appendLinks(Graph other, int from) {
+        if (from >= other.edgeCount) {
+            return; // Nothing new: keep the snapshot that is already built
+        }
+        for (int e = from; e < other.edgeCount; e++) {
+            addEdge(other.names.get(other.edgeU[e]), other.names.get(other.edgeV[e]), other.edgeCost[e],
+                    other.edgeBandwidth[e]);
+        }
+        version = Math.max(version, other.version) + 1; // Later than every snapshot of either graph
+        snapshot = null;
+    }
+
+    private void ensureEdgeCapacity(int needed) {
+        if (needed > edgeU.length) { // Grow the edge arrays together
+            int capacity = Math.max(needed, edgeU.length * 2);
+            edgeU = Arrays.copyOf(edgeU, capacity);
+            edgeV = Arrays.copyOf(edgeV, capacity);
+            edgeCost = Arrays.copyOf(edgeCost, capacity);
+            edgeBandwidth = Arrays.copyOf(edgeBandwidth, capacity);
+        }
+    }
+
+    // Immutable CSR view of the graph as it is now; rebuilt only after edits.
+    CsrGraph snapshot() {
+        if (snapshot == null) {
+            snapshot = new CsrGraph(version, names.toArray(new String[0]), ids, edgeU, edgeV, edgeCost,
+                    edgeBandwidth, edgeCount);
+        }
+        return snapshot;
+    }
+
+    public List<Edge> findMinimumSpanningTree() {
+        return optimizeNetwork().edges;
+    }
+
+    // Minimum spanning tree of the current snapshot with its total cost and bandwidth. Parallel
+    // links are reduced to the cheapest one first; Kruskal or Prim is chosen by density.
+    public MstResult optimizeNetwork() {
+        return optimizeNetwork(snapshot(), Progress.NONE);
+    }
+
+    // Minimum spanning tree of a snapshot taken earlier. The snapshot is immutable, so this can
+    // run on a background thread while edges are being added; progress may cancel it.
+    synchronized MstResult optimizeNetwork(CsrGraph g, Progress progress) {
+        if (mstEngine == null || mstEngine.graph != g) { // New snapshot: ingest its edges again
+            mstEngine = new MstEngine(g, progress);
+        }
+        return mstEngine.solve(progress);
     }
 
     public int findShortestPath(String start, String end) {
-        PriorityQueue<Node> pq = new PriorityQueue<>(Comparator.comparingInt(n -> n.cost)); // Priority queue for nodes,
-                                                                                            // sorted by cost
-        Map<String, Integer> distances = new HashMap<>(); // Map to store the shortest distance to each node
-        Set<String> visited = new HashSet<>(); // Set to keep track of visited nodes
+        return (int) findShortestPath(start, end, PathMode.DIJKSTRA).distance; // Plain Dijkstra
+    }
 
-        distances.put(start, 0); // Set the distance to the start node to 0
-        pq.add(new Node(start, 0)); // Add the start node to the priority queue
+    // Shortest path cost from start to end using the chosen search strategy. The result also
+    // reports how many nodes the search settled. DIJKSTRA stops as soon as the end is settled; from
+    // the second query on from the same start it answers from a cached tree of that start instead,
+    // so repeating a query settles nothing, and after addEdge only the nodes the new links bring closer.
+    public PathResult findShortestPath(String start, String end, PathMode mode) {
+        return findShortestPath(snapshot(), start, end, mode, Progress.NONE);
+    }
 
-        while (!pq.isEmpty()) {
-            Node current = pq.poll(); // Get the node with the smallest distance from the queue
-            if (!visited.add(current.name)) // Skip if the node is already visited
-                continue;
-            if (current.name.equals(end)) // If the current node is the destination, return the distance
-                return current.cost;
-
-            for (Edge neighbor : adjList.getOrDefault(current.name, Collections.emptyList())) { // For each neighbor of
-                                                                                                // the current node
-                int newDist = current.cost + neighbor.cost; // Calculate the new distance to the neighbor
-                if (newDist < distances.getOrDefault(neighbor.node2, Integer.MAX_VALUE)) { // If the new distance is
-                                                                                           // shorter, update it
-                    distances.put(neighbor.node2, newDist); // Update the distance for the neighbor
-                    pq.add(new Node(neighbor.node2, newDist)); // Add the neighbor to the priority queue
-                }
-            }
+    // Shortest path on a snapshot taken earlier; like optimizeNetwork(CsrGraph, Progress) it is safe
+    // to run in the background, and synchronized so only one search uses the cached engine at a time.
+    synchronized PathResult findShortestPath(CsrGraph g, String start, String end, PathMode mode,
+            Progress progress) {
+        if (start.equals(end)) // A node is always 0 away from itself
+            return new PathResult(0, 0, mode);
+        int s = g.id(start), t = g.id(end); // Translate names to ids at the API boundary
+        if (s == -1 || t == -1) // Unknown nodes cannot be connected
+            return new PathResult(-1, 0, mode);
+        if (mode == PathMode.DIJKSTRA && pathTrees.wantsTree(s)) { // Repeated start: use its whole tree
+            long d = pathTrees.tree(g, s, progress)[t];
+            return new PathResult(d == Long.MAX_VALUE ? -1 : d, pathTrees.settledCount(), mode);
+        }
+        if (pathEngine == null || pathEngine.graph != g) { // New snapshot: new scratch arrays
+            pathEngine = new ShortestPathEngine(g);
+        }
+        if (mode == PathMode.ALT && (landmarks == null || landmarks.graph != g)) {
+            landmarks = Landmarks.select(g, 8, progress); // Computed once per snapshot, reused by every ALT query
+        }
+        pathEngine.setProgress(progress);
+        try {
+            return pathEngine.query(s, t, mode, landmarks); // Run the search on ids
+        } finally {
+            pathEngine.setProgress(Progress.NONE);
         }
-        return -1; // Return -1 if no path is found
     }
 
-    // Method to draw the graph (nodes and edges) on the panel
-    public void drawGraph(Graphics g) {
-        int nodeRadius = 20; // Radius for drawing the nodes
-        Map<String, Point> nodePositions = new HashMap<>(); // Map to store the positions of the nodes
-        int x = 100, y = 100; // Starting position for drawing the nodes
-
-        // Example: Draw nodes and edges
-        for (String node : adjList.keySet()) {
-            nodePositions.put(node, new Point(x, y)); // Store the position of each node
-            g.setColor(Color.BLUE); // Set the color for nodes
-            g.fillOval(x - nodeRadius, y - nodeRadius, nodeRadius * 2, nodeRadius * 2); // Draw the node as a circle
-            g.setColor(Color.BLACK); // Set the color for the text
-            g.drawString(node, x - nodeRadius / 2, y - nodeRadius); // Draw the node's name
-
-            x += 150; // Move to the next x position for the next node
-            if (x > 500) { // If x position exceeds the width, move to the next row
-                x = 100;
-                y += 150; // Move down to the next row
-            }
+    // Computes and caches the Dijkstra tree of start now, so DIJKSTRA queries from it are answered
+    // from the cache from the first one on (and repaired, not recomputed, after addEdge).
+    public synchronized void cachePathTree(String start) {
+        CsrGraph g = snapshot();
+        int s = g.id(start);
+        if (s != -1) {
+            pathTrees.tree(g, s, Progress.NONE);
         }
+    }
+
+    // Shortest path costs for many (starts[i], ends[i]) pairs at once: the pairs are grouped by
+    // start and each distinct start is searched once, answering all of its pairs from one row.
+    // result[i] is -1 when either node is unknown or there is no path, like findShortestPath.
+    public long[] findShortestPaths(String[] starts, String[] ends) {
+        return findShortestPaths(snapshot(), starts, ends, Progress.NONE);
+    }
 
-        // Draw edges (connections between nodes)
-        for (String node : adjList.keySet()) {
-            Point node1Pos = nodePositions.get(node); // Get the position of the first node
-            for (Edge edge : adjList.get(node)) {
-                Point node2Pos = nodePositions.get(edge.node2); // Get the position of the second node
-                g.setColor(Color.RED); // Set the color for edges
-                g.drawLine(node1Pos.x, node1Pos.y, node2Pos.x, node2Pos.y); // Draw the edge between the nodes
-                g.setColor(Color.BLACK); // Set the color for the text (cost)
-                g.drawString(edge.cost + "", (node1Pos.x + node2Pos.x) / 2, (node1Pos.y + node2Pos.y) / 2); // Draw the
-                                                                                                            // cost
-                                                                                                            // label on
-                                                                                                            // the edge
+    synchronized long[] findShortestPaths(CsrGraph g, String[] starts, String[] ends, Progress progress) {
+        int count = starts.length;
+        long[] result = new long[count];
+        long[] order = new long[count]; // (start id, pair index) packed so a primitive sort groups by start
+        int known = 0;
+        for (int i = 0; i < count; i++) {
+            int s = g.id(starts[i]);
+            if (starts[i].equals(ends[i])) {
+                result[i] = 0; // A node is always 0 away from itself
+            } else if (s == -1 || g.id(ends[i]) == -1) {
+                result[i] = -1; // Unknown nodes cannot be connected
+            } else {
+                order[known++] = ((long) s << 32) | i;
             }
         }
+        Arrays.sort(order, 0, known);
+        if (pathEngine == null || pathEngine.graph != g) { // New snapshot: new scratch arrays
+            pathEngine = new ShortestPathEngine(g);
+        }
+        long[] row = new long[g.n]; // Exact costs, as findShortestPath returns them
+        for (int p = 0; p < known; ) {
+            int s = (int) (order[p] >>> 32);
+            pathEngine.distancesFrom(s, row); // One search answers every pair with this start
+            for (; p < known && (int) (order[p] >>> 32) == s; p++) {
+                int i = (int) order[p];
+                long d = row[g.id(ends[i])];
+                result[i] = d == Long.MAX_VALUE ? -1 : d;
+            }
+            progress.update(p, known);
+        }
+        return result;
     }
-}
-
-class Edge {
-    String node1, node2;
-    int cost, bandwidth;
 
-    public Edge(String node1, String node2, int cost, int bandwidth) {
-        this.node1 = node1; // Initialize the first node
-        this.node2 = node2; // Initialize the second node
-        this.cost = cost; // Initialize the cost
-        this.bandwidth = bandwidth; // Initialize the bandwidth
+    // Cost between every pair of nodes of the current snapshot, computed on the common
+    // ForkJoinPool. The matrix lives off the Java heap (4 * n * n bytes) and can be saved with write().
+    public DistanceMatrix allPairsDistances() {
+        return DistanceMatrix.compute(snapshot(), ForkJoinPool.commonPool(), Progress.NONE);
     }
-}
 
-class Node {
-    String name;
-    int cost;
+    // Best route from start to end for a bandwidth-aware objective. minBandwidth is the
+    // smallest link bandwidth allowed by CHEAPEST_WITH_BANDWIDTH (ignored by the other modes).
+    public RouteResult findRoute(String start, String end, RouteMode mode, int minBandwidth) {
+        return findRoute(snapshot(), start, end, mode, minBandwidth, Progress.NONE);
+    }
 
-    public Node(String name, int cost) {
-        this.name = name; // Initialize the node's name
-        this.cost = cost; // Initialize the node's cost
+    // Route on a snapshot taken earlier; safe to run in the background like findShortestPath.
+    synchronized RouteResult findRoute(CsrGraph g, String start, String end, RouteMode mode, int minBandwidth,
+            Progress progress) {
+        int s = g.id(start), t = g.id(end); // Translate names to ids at the API boundary
+        if (s == -1 || t == -1) // Unknown nodes cannot be connected
+            return new RouteResult(Collections.emptyList(), mode == RouteMode.WIDEST ? 0 : -1, mode);
+        if (routingEngine == null || routingEngine.graph != g) { // New snapshot: new scratch arrays
+            routingEngine = new RoutingEngine(g);
+        }
+        return routingEngine.route(s, t, mode, minBandwidth, progress);
     }
-}
 
-class UnionFind {
-    private Map<String, String> parent = new HashMap<>(); // Map to store the parent of each node
+    // Kruskal's algorithm over every stored edge, parallel links included; the reference MstEngine is
+    // checked against by EngineCheck.
+    static List<Edge> minimumSpanningTree(CsrGraph g) {
+        long[] order = new long[g.m]; // (cost, edge id) packed so a primitive sort orders by cost
+        for (int e = 0; e < g.m; e++) {
+            order[e] = ((long) g.edgeCost[e] << 32) | e;
+        }
+        Arrays.sort(order); // Sort the edges by cost in ascending order
+
+        int[] parent = new int[g.n]; // Disjoint sets over node ids
+        for (int i = 0; i < g.n; i++) {
+            parent[i] = i; // Each node starts in its own set
+        }
+        List<Edge> mst = new ArrayList<>(); // List to store the minimum spanning tree
+        for (long key : order) {
+            int e = (int) key; // Low 32 bits hold the edge id
+            int root1 = find(parent, g.edgeU[e]), root2 = find(parent, g.edgeV[e]);
+            if (root1 != root2) { // If the endpoints are not yet connected, the edge joins the MST
+                parent[root1] = root2;
+                mst.add(new Edge(g.names[g.edgeU[e]], g.names[g.edgeV[e]], g.edgeCost[e], g.edgeBandwidth[e]));
+            }
+        }
+        return mst; // Return the minimum spanning tree
+    }
 
-    public UnionFind(Set<String> nodes) {
-        for (String node : nodes)
-            parent.put(node, node); // Initialize each node's parent to be itself
+    // Dijkstra's algorithm from s to t over ids; returns the total cost or -1 if t is unreachable.
+    // Uses a PriorityQueue with lazy deletion; the reference the searches are checked against by EngineCheck.
+    static int shortestDistance(CsrGraph g, int s, int t) {
+        int[] dist = new int[g.n]; // Shortest known distance to each node
+        Arrays.fill(dist, Integer.MAX_VALUE);
+        boolean[] visited = new boolean[g.n]; // Nodes whose distance is final
+        PriorityQueue<Long> pq = new PriorityQueue<>(); // (distance, node) packed into one long
+        dist[s] = 0;
+        pq.add((long) s);
+        while (!pq.isEmpty()) {
+            long entry = pq.poll(); // Get the node with the smallest distance from the queue
+            int u = (int) entry; // Low 32 bits hold the node id
+            if (visited[u]) // Skip if the node is already visited
+                continue;
+            visited[u] = true;
+            if (u == t) // If the current node is the destination, return the distance
+                return dist[u];
+            for (int a = g.offsets[u]; a < g.offsets[u + 1]; a++) { // For each neighbor of the current node
+                int v = g.arcTarget[a];
+                int newDist = dist[u] + g.arcCost[a]; // Calculate the new distance to the neighbor
+                if (newDist < dist[v]) { // If the new distance is shorter, update it
+                    dist[v] = newDist;
+                    pq.add(((long) newDist << 32) | v); // Add the neighbor to the priority queue
+                }
+            }
+        }
+        return -1; // Return -1 if no path is found
     }
 
-    public String find(String node) {
-        if (!parent.get(node).equals(node)) { // If the node's parent is not itself
-            parent.put(node, find(parent.get(node))); // Recursively find the root parent
+    // Iterative find with path compression.
+    private static int find(int[] parent, int x) {
+        int root = x;
+        while (parent[root] != root) {
+            root = parent[root]; // Walk up to the root
         }
-        return parent.get(node); // Return the root parent of the node
+        while (parent[x] != root) { // Point every node on the path straight at the root
+            int next = parent[x];
+            parent[x] = root;
+            x = next;
+        }
+        return root;
     }
 
-    public boolean union(String node1, String node2) {
-        String root1 = find(node1); // Find the root of the first node
-        String root2 = find(node2); // Find the root of the second node
-        if (!root1.equals(root2)) { // If the nodes are not connected
-            parent.put(root1, root2); // Connect the two nodes by making one root the parent of the other
-            return true; // Return true to indicate that the union was successful
+    private int intern(String name) {
+        Integer id = ids.get(name);
+        if (id == null) { // First time this name is seen: give it the next id
+            id = names.size();
+            names.add(name);
+            ids.put(name, id);
         }
-        return false; // Return false if the nodes are already connected
+        return id;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,25 @@
+package Question5;
+
+/*
+ * Bandwidth-aware routing objectives.
+ * - WIDEST maximizes the smallest bandwidth along the path (the bottleneck).
+ * - MIN_LATENCY minimizes the sum of per-link latencies, where latency = cost / bandwidth.
+ * - CHEAPEST_WITH_BANDWIDTH minimizes total cost using only links with at least a given bandwidth.
+ */
+
+enum RouteMode {
+    WIDEST("Widest path"),
+    MIN_LATENCY("Lowest latency"),
+    CHEAPEST_WITH_BANDWIDTH("Cheapest with min bandwidth");
+
+    private final String label; // Name shown in the GUI
+
+    RouteMode(String label) {
+        this.label = label;
+    }
+
+    @Override
+    public String toString() {
+        return label;
+    }
+}
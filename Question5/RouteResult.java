@@ -0,0 +1,26 @@
+package Question5;
+
+import java.util.List;
+
+/*
+ * Result of a bandwidth-aware route query: the node names along the path (empty when the end
+ * cannot be reached) and the value of the objective, which is the bottleneck bandwidth for
+ * WIDEST, the total latency for MIN_LATENCY, and the total cost for CHEAPEST_WITH_BANDWIDTH.
+ * A route from a node to itself is that one node with value 0.
+ */
+
+final class RouteResult {
+    final List<String> path; // Nodes from start to end, or empty if there is no route
+    final double value; // Objective value of the path
+    final RouteMode mode; // Objective that was optimized
+
+    RouteResult(List<String> path, double value, RouteMode mode) {
+        this.path = path;
+        this.value = value;
+        this.mode = mode;
+    }
+
+    boolean found() {
+        return !path.isEmpty();
+    }
+}
@@ -0,0 +1,124 @@
+package Question5;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/*
+ * Bandwidth-aware routing over one CsrGraph snapshot (see RouteMode for the objectives).
+ * All three objectives are label-setting searches in Dijkstra order on an IndexedHeap:
+ * - WIDEST settles nodes by the largest bottleneck first; the heap key is the negated bottleneck.
+ * - MIN_LATENCY adds cost / bandwidth per link; the heap key is the raw bits of the double,
+ *   which sort like the values themselves for non-negative doubles.
+ * - CHEAPEST_WITH_BANDWIDTH is Dijkstra on cost that ignores links below the bandwidth limit.
+ * Links with bandwidth <= 0 carry no traffic and are skipped by every objective.
+ * MIN_LATENCY and CHEAPEST_WITH_BANDWIDTH need non-negative costs (label setting settles a node
+ * for good); Graph.checkCost rejects negative costs when links are added, so every snapshot has them.
+ * A route from a node to itself has no links: its path is just that node and its value is 0
+ * for every objective (there is no bottleneck link, so WIDEST reports 0 rather than infinity).
+ * parent[] records how each node was reached so the full path is returned.
+ * Like ShortestPathEngine, arrays are reused between queries via search stamps; not thread-safe.
+ * A search reports the settled count to a Progress every few thousand nodes; if it throws to
+ * cancel, the next search starts from a clean heap.
+ */
+
+final class RoutingEngine {
+    final CsrGraph graph; // Snapshot this engine routes on
+    private final IndexedHeap heap;
+    private final double[] value; // Best objective value found for each node
+    private final int[] parent; // Previous node on the best path
+    private final int[] stamp; // Search number that last wrote value[v]
+    private final int[] closed; // Search number that settled v
+    private int search;
+
+    RoutingEngine(CsrGraph graph) {
+        this.graph = graph;
+        this.heap = new IndexedHeap(graph.n);
+        this.value = new double[graph.n];
+        this.parent = new int[graph.n];
+        this.stamp = new int[graph.n];
+        this.closed = new int[graph.n];
+    }
+
+    // Best route from s to t for the objective; minBandwidth is only used by CHEAPEST_WITH_BANDWIDTH.
+    RouteResult route(int s, int t, RouteMode mode, int minBandwidth, Progress progress) {
+        if (s == t) { // No links to cross
+            return new RouteResult(Collections.singletonList(graph.names[s]), 0, mode);
+        }
+        heap.clear(); // Leftovers of a search that was cancelled part-way
+        if (++search == 0) { // Stamp counter wrapped: clear stale stamps once
+            Arrays.fill(stamp, 0);
+            Arrays.fill(closed, 0);
+            search = 1;
+        }
+        double startValue = mode == RouteMode.WIDEST ? Double.POSITIVE_INFINITY : 0; // No bottleneck yet
+        stamp[s] = search;
+        value[s] = startValue;
+        parent[s] = -1;
+        heap.insertOrDecrease(s, key(mode, startValue));
+
+        int settled = 0;
+        while (!heap.isEmpty()) {
+            int u = heap.pollMin(); // Best remaining node for this objective
+            closed[u] = search;
+            if ((++settled & Progress.INTERVAL_MASK) == 0) {
+                progress.update(settled, graph.n);
+            }
+            if (u == t) {
+                heap.clear();
+                return new RouteResult(path(t), value[t], mode);
+            }
+            for (int a = graph.offsets[u]; a < graph.offsets[u + 1]; a++) {
+                int v = graph.arcTarget[a];
+                int bandwidth = graph.arcBandwidth[a];
+                if (closed[v] == search || bandwidth <= 0) {
+                    continue; // Settled, or a link that carries nothing
+                }
+                double candidate;
+                switch (mode) {
+                    case WIDEST:
+                        candidate = Math.min(value[u], bandwidth); // Bottleneck through u
+                        break;
+                    case MIN_LATENCY:
+                        candidate = value[u] + (double) graph.arcCost[a] / bandwidth; // Add this link's latency
+                        break;
+                    default:
+                        if (bandwidth < minBandwidth) {
+                            continue; // Link too narrow for the requested bandwidth
+                        }
+                        candidate = value[u] + graph.arcCost[a];
+                }
+                if (stamp[v] != search || better(mode, candidate, value[v])) {
+                    stamp[v] = search;
+                    value[v] = candidate;
+                    parent[v] = u;
+                    heap.insertOrDecrease(v, key(mode, candidate));
+                }
+            }
+        }
+        return new RouteResult(Collections.emptyList(), mode == RouteMode.WIDEST ? 0 : -1, mode); // No route
+    }
+
+    private static boolean better(RouteMode mode, double candidate, double current) {
+        return mode == RouteMode.WIDEST ? candidate > current : candidate < current;
+    }
+
+    // Heap key: smaller is better for every objective.
+    private static long key(RouteMode mode, double v) {
+        if (mode == RouteMode.WIDEST) {
+            return v == Double.POSITIVE_INFINITY ? Long.MIN_VALUE : -(long) v; // Wider first
+        }
+        return Double.doubleToRawLongBits(v); // Orders like v for v >= 0
+    }
+
+    // Node names from the start to t, following parent links.
+    private List<String> path(int t) {
+        List<String> nodes = new ArrayList<>();
+        for (int v = t; v != -1; v = parent[v]) {
+            nodes.add(graph.names[v]);
+        }
+        Collections.reverse(nodes);
+        return nodes;
+    }
+}
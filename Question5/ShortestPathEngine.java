@@ -0,0 +1,243 @@
+package Question5;
+
+import java.util.Arrays;
+
+/*
+ * Reusable point-to-point shortest-path searches over one CsrGraph snapshot.
+ * - Uses IndexedHeaps with decrease-key, so every node is queued at most once per search.
+ * - dist[], stamp[] and closed[] are allocated once per snapshot: dist[v] is only meaningful when
+ *   stamp[v] equals the current search number, so starting a new search costs O(1)
+ *   instead of refilling the arrays. Repeated queries therefore allocate nothing.
+ * - distance() is plain Dijkstra from the start.
+ * - bidirectional() also searches backward from the end (the graph is undirected, so the same
+ *   arcs are used) and stops once the two smallest queued distances add up to at least the best
+ *   meeting point found so far.
+ * - alt() is A*: each node is queued by distance + a landmark lower bound on its remaining distance.
+ * Graph.shortestDistance (PriorityQueue with lazy deletion) is the reference this is checked against
+ * by "Question5 --check".
+ * Searches report the settled count to a Progress every few thousand nodes; if it throws to
+ * cancel, the next search starts from clean heaps.
+ * An engine is not thread-safe; use one per thread.
+ */
+
+final class ShortestPathEngine {
+    final CsrGraph graph; // Snapshot this engine searches
+    private final Side forward; // Search state from the start node
+    private Side backward; // Search state from the end node (created on first bidirectional query)
+    private int search; // Current search number
+    private int settled; // Nodes settled by the last search
+    private Progress progress = Progress.NONE; // Told how far each search is; may cancel it
+
+    ShortestPathEngine(CsrGraph graph) {
+        this.graph = graph;
+        this.forward = new Side(graph.n);
+    }
+
+    // Runs the query with the chosen strategy; landmarks are only used by ALT.
+    PathResult query(int s, int t, PathMode mode, Landmarks landmarks) {
+        long d;
+        switch (mode) {
+            case BIDIRECTIONAL:
+                d = bidirectional(s, t);
+                break;
+            case ALT:
+                d = alt(s, t, landmarks);
+                break;
+            default:
+                d = distance(s, t);
+        }
+        return new PathResult(d, settled, mode);
+    }
+
+    // Dijkstra: cost of the cheapest path from s to t, or -1 if t cannot be reached.
+    long distance(int s, int t) {
+        begin();
+        Side f = forward;
+        f.open(s, 0, search);
+        while (!f.heap.isEmpty()) {
+            long d = f.heap.minKey();
+            int u = f.settle(search); // Settle the closest queued node
+            if (u == t) {
+                f.heap.clear(); // Leave the heap empty for the next search
+                return d;
+            }
+            relax(f, u, d, null, -1);
+        }
+        return -1;
+    }
+
+    // Bidirectional Dijkstra: searches from both ends and keeps the best meeting point (mu).
+    long bidirectional(int s, int t) {
+        if (s == t) {
+            settled = 0;
+            return 0;
+        }
+        if (backward == null) {
+            backward = new Side(graph.n);
+        }
+        begin();
+        Side f = forward, b = backward;
+        f.open(s, 0, search);
+        b.open(t, 0, search);
+        long mu = Long.MAX_VALUE; // Cost of the best s-t path seen so far
+        while (!f.heap.isEmpty() && !b.heap.isEmpty()) {
+            if (f.heap.minKey() + b.heap.minKey() >= mu) {
+                break; // No unexplored meeting point can beat mu
+            }
+            Side side = f.heap.minKey() <= b.heap.minKey() ? f : b; // Grow the side with the closer frontier
+            Side other = side == f ? b : f;
+            long d = side.heap.minKey();
+            int u = side.settle(search);
+            if (other.stamp[u] == search) {
+                mu = Math.min(mu, d + other.dist[u]); // Both searches have reached u
+            }
+            for (int a = graph.offsets[u]; a < graph.offsets[u + 1]; a++) {
+                int v = graph.arcTarget[a];
+                if (side.closed[v] == search) {
+                    continue;
+                }
+                long nd = d + graph.arcCost[a];
+                if (side.stamp[v] != search || nd < side.dist[v]) {
+                    side.stamp[v] = search;
+                    side.dist[v] = nd;
+                    side.heap.insertOrDecrease(v, nd);
+                }
+                if (other.stamp[v] == search) {
+                    mu = Math.min(mu, side.dist[v] + other.dist[v]); // Candidate path through v
+                }
+            }
+        }
+        f.heap.clear();
+        b.heap.clear();
+        return mu == Long.MAX_VALUE ? -1 : mu;
+    }
+
+    // A* with landmark (ALT) lower bounds: cost from s to t, or -1 if t cannot be reached.
+    long alt(int s, int t, Landmarks landmarks) {
+        begin();
+        Side f = forward;
+        f.open(s, landmarks.lowerBound(s, t), search);
+        while (!f.heap.isEmpty()) {
+            int u = f.settle(search); // Node with the smallest distance + lower bound
+            if (u == t) {
+                f.heap.clear();
+                return f.dist[u];
+            }
+            relax(f, u, f.dist[u], landmarks, t);
+        }
+        return -1;
+    }
+
+    // Fills a new array with the cost from s to every node (Long.MAX_VALUE if unreachable).
+    long[] distancesFrom(int s) {
+        long[] result = new long[graph.n];
+        distancesFrom(s, result);
+        return result;
+    }
+
+    // Writes the exact cost from s to every node into row (Long.MAX_VALUE if unreachable).
+    void distancesFrom(int s, long[] row) {
+        Arrays.fill(row, 0, graph.n, Long.MAX_VALUE);
+        begin();
+        Side f = forward;
+        f.open(s, 0, search);
+        while (!f.heap.isEmpty()) {
+            long d = f.heap.minKey();
+            int u = f.settle(search);
+            row[u] = d;
+            relax(f, u, d, null, -1);
+        }
+    }
+
+    // Progress reported by the following searches.
+    void setProgress(Progress progress) {
+        this.progress = progress;
+    }
+
+    // Writes the cost from s to every node into row as ints: DistanceMatrix.UNREACHABLE when there is
+    // no path, and costs that do not fit are cut to Integer.MAX_VALUE - 1. Allocates nothing.
+    void distancesFrom(int s, int[] row) {
+        Arrays.fill(row, 0, graph.n, DistanceMatrix.UNREACHABLE);
+        begin();
+        Side f = forward;
+        f.open(s, 0, search);
+        while (!f.heap.isEmpty()) {
+            long d = f.heap.minKey();
+            int u = f.settle(search);
+            row[u] = (int) Math.min(d, Integer.MAX_VALUE - 1);
+            relax(f, u, d, null, -1);
+        }
+    }
+
+    // Number of nodes settled by the most recent search.
+    int settledCount() {
+        return settled;
+    }
+
+    // Relaxes every arc out of u; with landmarks, nodes are queued by distance + lower bound to t.
+    private void relax(Side side, int u, long d, Landmarks landmarks, int t) {
+        for (int a = graph.offsets[u]; a < graph.offsets[u + 1]; a++) {
+            int v = graph.arcTarget[a];
+            if (side.closed[v] == search) {
+                continue; // Already settled
+            }
+            long nd = d + graph.arcCost[a];
+            if (side.stamp[v] != search || nd < side.dist[v]) { // First reach in this search, or a shorter route
+                side.stamp[v] = search;
+                side.dist[v] = nd;
+                side.heap.insertOrDecrease(v, landmarks == null ? nd : nd + landmarks.lowerBound(v, t));
+            }
+        }
+    }
+
+    // Starts a new search number; every Side's stamps become stale at once.
+    private void begin() {
+        forward.heap.clear(); // Leftovers of a search that was cancelled part-way
+        if (backward != null) {
+            backward.heap.clear();
+        }
+        if (++search == 0) { // Stamp counter wrapped: clear stale stamps once
+            forward.reset();
+            if (backward != null) {
+                backward.reset();
+            }
+            search = 1;
+        }
+        settled = 0;
+    }
+
+    // Heap and per-node arrays of one search direction.
+    private final class Side {
+        final IndexedHeap heap;
+        final long[] dist; // Tentative distance of each node in the current search
+        final int[] stamp; // Search number that last wrote dist[v]
+        final int[] closed; // Search number that settled v
+
+        Side(int n) {
+            heap = new IndexedHeap(n);
+            dist = new long[n];
+            stamp = new int[n];
+            closed = new int[n];
+        }
+
+        void open(int node, long key, int search) {
+            stamp[node] = search;
+            dist[node] = 0;
+            heap.insertOrDecrease(node, key);
+        }
+
+        int settle(int search) {
+            int u = heap.pollMin();
+            closed[u] = search;
+            if ((++settled & Progress.INTERVAL_MASK) == 0) {
+                progress.update(settled, graph.n);
+            }
+            return u;
+        }
+
+        void reset() {
+            Arrays.fill(stamp, 0);
+            Arrays.fill(closed, 0);
+        }
+    }
+}
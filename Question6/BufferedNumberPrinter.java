@@ -0,0 +1,125 @@
+package Question6;
+
+/*
+ * Working Mechanism:
+ * NumberPrinter that collects output in memory instead of printing each token.
+ * - NumberPrinter's methods call System.out.print, which takes the PrintStream lock and may
+ *   write to the terminal for every "0" and every number. This subclass writes the ASCII digits
+ *   straight into one pre-sized byte[] (no String per number) and hands the bytes to a
+ *   WritableByteChannel (a FileChannel, or standard output) only when the buffer is full and on
+ *   flush(), so a write call carries up to a whole buffer of output.
+ * - A write that fails while the threads are still printing is not thrown on that thread: an
+ *   exception there would end its turns and leave the other threads parked forever. The first
+ *   IOException is recorded, from then on the output is discarded, and the threads keep passing
+ *   turns to the end. flush() then throws the recorded exception.
+ * - There is no lock: the printing threads already take turns through Question6A's semaphores or
+ *   TurnCoordinator/Sequencer, and each handoff makes the previous thread's appends visible to
+ *   the next one. Call flush() after joining the threads (join makes their appends visible too).
+ * - It is still a NumberPrinter, so it can be passed anywhere one is expected; the plain
+ *   NumberPrinter remains for interactive use.
+ *
+ * main prints the sequence for n (default 5) through a buffered printer on standard output.
+ */
+
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+
+class BufferedNumberPrinter extends NumberPrinter {
+    static final int DEFAULT_CAPACITY = 1 << 16; // Bytes collected before a write
+    private static final int MAX_TOKEN = 11; // Longest int in ASCII: "-2147483648"
+
+    private final WritableByteChannel channel; // Where full buffers go
+    private final byte[] buffer; // Output not written yet
+    private final ByteBuffer view; // Wraps buffer for the channel
+    private int size; // Bytes used in buffer
+    private IOException failure; // First write failure, or null; later output is discarded
+
+    BufferedNumberPrinter(WritableByteChannel channel) {
+        this(channel, DEFAULT_CAPACITY);
+    }
+
+    BufferedNumberPrinter(WritableByteChannel channel, int capacity) {
+        this.channel = channel;
+        this.buffer = new byte[Math.max(capacity, MAX_TOKEN)];
+        this.view = ByteBuffer.wrap(buffer);
+    }
+
+    @Override
+    public void printZero() {
+        if (buffer.length - size < 1) {
+            writeBuffer();
+        }
+        buffer[size++] = '0';
+    }
+
+    @Override
+    public void printEven(int num) {
+        append(num);
+    }
+
+    @Override
+    public void printOdd(int num) {
+        append(num);
+    }
+
+    // Writes num in decimal, filling the digits in from the right.
+    private void append(int num) {
+        if (buffer.length - size < MAX_TOKEN) {
+            writeBuffer();
+        }
+        long value = num; // long so that -Integer.MIN_VALUE fits
+        if (value < 0) {
+            buffer[size++] = '-';
+            value = -value;
+        }
+        int digits = 1;
+        for (long rest = value / 10; rest != 0; rest /= 10) {
+            digits++;
+        }
+        for (int i = size + digits - 1; i >= size; i--) {
+            buffer[i] = (byte) ('0' + value % 10);
+            value /= 10;
+        }
+        size += digits;
+    }
+
+    // Writes everything collected so far to the channel, or throws the first write failure.
+    // Call it after the printing threads have been joined.
+    void flush() throws IOException {
+        writeBuffer();
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    // Hands the buffer to the channel while the threads are printing; a failure is recorded
+    // instead of thrown, so the calling thread still finishes its turn.
+    private void writeBuffer() {
+        if (failure == null) {
+            view.clear().limit(size);
+            try {
+                while (view.hasRemaining()) {
+                    channel.write(view);
+                }
+            } catch (IOException e) {
+                failure = e; // Reported by flush()
+            }
+        }
+        size = 0; // Written, or discarded after a failure
+    }
+
+    // Main method: prints the sequence for n through a buffered printer on standard output
+    public static void main(String[] args) throws Exception {
+        int n = args.length > 0 ? Integer.parseInt(args[0]) : 5;
+        WritableByteChannel out = Channels.newChannel(new FileOutputStream(FileDescriptor.out));
+        BufferedNumberPrinter printer = new BufferedNumberPrinter(out);
+        TurnCoordinator controller = new TurnCoordinator(n, printer);
+        TurnCoordinator.run(controller::printZero, controller::printEven, controller::printOdd);
+        printer.flush(); // After the join: writes the rest and reports any write failure
+        System.out.println();
+    }
+}
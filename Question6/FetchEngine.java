@@ -0,0 +1,328 @@
+package Question6;
+
+/*
+ * Working Mechanism:
+ * Asynchronous page fetcher for the crawler, built on java.net.http.HttpClient.
+ * - fetch() returns a CompletableFuture at once. Requests go out with sendAsync, so a fetch
+ *   waiting for the network holds no thread; thousands can be in flight on a handful of the
+ *   client's threads. The client asks for HTTP/2 and so multiplexes many requests over one
+ *   connection to servers that support it, falling back to HTTP/1.1 otherwise.
+ * - Per-host limit: at most perHostLimit requests run against one host (scheme, host and port)
+ *   at a time. Further fetches for that host wait in the host's queue, holding no thread, and
+ *   are started by the completion of an earlier one. That start is handed to the engine's
+ *   executor rather than run on the completing stack: a fetch that fails at once (for example a
+ *   bad URI) would otherwise release its slot and start the next one inside the same call, so
+ *   a long queue of failing fetches would nest until the stack overflows.
+ * - Timeouts: connectTimeout bounds opening a connection; requestTimeout bounds the whole
+ *   fetch, body included. A fetch that runs over is cancelled, which aborts the exchange and
+ *   frees the host's slot, and completes with HttpTimeoutException.
+ * - Pages are requested with "Accept-Encoding: gzip" and decompressed when the server sends
+ *   them gzipped; the body is decoded with the charset named in Content-Type (UTF-8 otherwise).
+ *
+ * main starts local com.sun.net.httpserver.HttpServer instances that serve gzipped pages
+ * slowly, fetches many pages from them at once, and reports throughput and the most requests
+ * seen in flight per server.
+ */
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPInputStream; // Decompresses gzip-encoded bodies
+import java.util.zip.GZIPOutputStream;
+
+import com.sun.net.httpserver.HttpServer; // Local stand-in server for main
+
+class FetchEngine implements AutoCloseable {
+    static final int DEFAULT_PER_HOST_LIMIT = 8; // Requests in flight per host
+    static final Duration DEFAULT_CONNECT_TIMEOUT = Duration.ofSeconds(5);
+    static final Duration DEFAULT_REQUEST_TIMEOUT = Duration.ofSeconds(15);
+    private static final int CLIENT_THREADS = 4; // Threads running the client and the completions
+
+    // A fetched page.
+    static final class Page {
+        final URI uri; // Address that was requested
+        final int status; // HTTP status code
+        final String contentType; // Content-Type header, or ""
+        final String body; // Decoded (and decompressed) body
+        final int wireBytes; // Body size as received, before decompression
+        final long nanos; // Time from sending the request to having the body
+
+        Page(URI uri, int status, String contentType, String body, int wireBytes, long nanos) {
+            this.uri = uri;
+            this.status = status;
+            this.contentType = contentType;
+            this.body = body;
+            this.wireBytes = wireBytes;
+            this.nanos = nanos;
+        }
+    }
+
+    // Requests running against one host, and fetches waiting for a free slot.
+    private static final class Host {
+        int active; // Guarded by this
+        final ArrayDeque<Waiting> waiting = new ArrayDeque<>(); // Guarded by this
+    }
+
+    // A fetch waiting for one of its host's slots.
+    private static final class Waiting {
+        final URI uri;
+        final CompletableFuture<Page> result;
+
+        Waiting(URI uri, CompletableFuture<Page> result) {
+            this.uri = uri;
+            this.result = result;
+        }
+    }
+
+    private final int perHostLimit;
+    private final Duration requestTimeout;
+    private final ExecutorService executor; // Owned by this engine; shut down by close()
+    private final HttpClient client;
+    private final Map<String, Host> hosts = new ConcurrentHashMap<>(); // Key: scheme://host:port
+    private final AtomicInteger inFlight = new AtomicInteger(); // Requests sent and not finished
+
+    FetchEngine() {
+        this(DEFAULT_PER_HOST_LIMIT, DEFAULT_CONNECT_TIMEOUT, DEFAULT_REQUEST_TIMEOUT);
+    }
+
+    FetchEngine(int perHostLimit, Duration connectTimeout, Duration requestTimeout) {
+        this.perHostLimit = perHostLimit;
+        this.requestTimeout = requestTimeout;
+        this.executor = Executors.newFixedThreadPool(CLIENT_THREADS, r -> {
+            Thread t = new Thread(r, "fetch-engine");
+            t.setDaemon(true); // Does not keep the application alive
+            return t;
+        });
+        this.client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_2) // Falls back to HTTP/1.1 when the server does not speak it
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .connectTimeout(connectTimeout)
+                .executor(executor)
+                .build();
+    }
+
+    // Fetches the page; the future fails with an IOException (HttpTimeoutException on timeout).
+    CompletableFuture<Page> fetch(URI uri) {
+        CompletableFuture<Page> result = new CompletableFuture<>();
+        String key = uri.getScheme() + "://" + uri.getHost() + ":" + uri.getPort();
+        Host host = hosts.computeIfAbsent(key, k -> new Host());
+        boolean start;
+        synchronized (host) {
+            start = host.active < perHostLimit;
+            if (start) {
+                host.active++;
+            } else {
+                host.waiting.add(new Waiting(uri, result)); // Started by release()
+            }
+        }
+        if (start) {
+            send(uri, host, result);
+        }
+        return result;
+    }
+
+    // Requests currently on the network, across all hosts.
+    int inFlight() {
+        return inFlight.get();
+    }
+
+    // Sends the request for a fetch that holds one of the host's slots.
+    private void send(URI uri, Host host, CompletableFuture<Page> result) {
+        AtomicBoolean released = new AtomicBoolean(); // The slot is given back exactly once
+        Runnable finish = () -> {
+            if (released.compareAndSet(false, true)) {
+                inFlight.decrementAndGet();
+                release(host);
+            }
+        };
+        inFlight.incrementAndGet();
+        long start = System.nanoTime();
+        CompletableFuture<HttpResponse<byte[]>> response;
+        try {
+            HttpRequest request = HttpRequest.newBuilder(uri)
+                    .timeout(requestTimeout) // Until the headers arrive; the timer below covers the body
+                    .header("Accept-Encoding", "gzip")
+                    .GET()
+                    .build();
+            response = client.sendAsync(request, HttpResponse.BodyHandlers.ofByteArray());
+        } catch (RuntimeException e) { // Bad URI scheme and the like
+            finish.run();
+            result.completeExceptionally(new IOException("Cannot fetch " + uri + ": " + e.getMessage(), e));
+            return;
+        }
+        CompletableFuture.delayedExecutor(requestTimeout.toNanos(), TimeUnit.NANOSECONDS)
+                .execute(() -> response.cancel(true)); // No effect if already done; aborts the exchange otherwise
+        response.whenComplete((r, error) -> {
+            finish.run();
+            if (error instanceof CancellationException) {
+                result.completeExceptionally(new HttpTimeoutException("Timed out fetching " + uri));
+            } else if (error != null) {
+                result.completeExceptionally(error instanceof CompletionException ? error.getCause() : error);
+            } else {
+                try {
+                    result.complete(decode(uri, r, System.nanoTime() - start));
+                } catch (IOException e) {
+                    result.completeExceptionally(e);
+                }
+            }
+        });
+    }
+
+    // Gives a host slot back, or hands it straight to the next fetch waiting for that host.
+    private void release(Host host) {
+        while (true) {
+            Waiting next;
+            synchronized (host) {
+                next = host.waiting.poll();
+                if (next == null) {
+                    host.active--;
+                    return;
+                }
+            }
+            try {
+                executor.execute(() -> send(next.uri, host, next.result)); // On a fresh stack, never nested here
+                return;
+            } catch (RejectedExecutionException e) { // Engine closed: fail this fetch and try the next one
+                next.result.completeExceptionally(new IOException("Engine closed before fetching " + next.uri, e));
+            }
+        }
+    }
+
+    private static Page decode(URI uri, HttpResponse<byte[]> response, long nanos) throws IOException {
+        byte[] raw = response.body();
+        byte[] bytes = raw;
+        String encoding = response.headers().firstValue("Content-Encoding").orElse("");
+        if (encoding.equalsIgnoreCase("gzip") || encoding.equalsIgnoreCase("x-gzip")) {
+            try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(raw))) {
+                bytes = in.readAllBytes();
+            }
+        }
+        String contentType = response.headers().firstValue("Content-Type").orElse("");
+        return new Page(uri, response.statusCode(), contentType, new String(bytes, charset(contentType)), raw.length,
+                nanos);
+    }
+
+    // Charset named in a Content-Type header such as "text/html; charset=ISO-8859-1", or UTF-8.
+    private static Charset charset(String contentType) {
+        int at = contentType.toLowerCase().indexOf("charset=");
+        if (at >= 0) {
+            String name = contentType.substring(at + 8).split(";")[0].trim().replace("\"", "");
+            try {
+                return Charset.forName(name);
+            } catch (RuntimeException e) {
+                // Unknown or malformed charset: fall back to UTF-8
+            }
+        }
+        return StandardCharsets.UTF_8;
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+
+    // Main method: fetches pages from local servers that answer slowly, to show the concurrency
+    public static void main(String[] args) throws Exception {
+        int servers = 4; // Each is a separate host (different port)
+        int pages = args.length > 0 ? Integer.parseInt(args[0]) : 2000; // Fetches in total
+        int perHost = args.length > 1 ? Integer.parseInt(args[1]) : 100; // Per-host limit
+        int delayMillis = 50; // Simulated server latency
+
+        StringBuilder html = new StringBuilder("<html><body>");
+        for (int i = 0; i < 100; i++) {
+            html.append("<a href=\"/page/").append(i).append("\">link ").append(i).append("</a>\n");
+        }
+        byte[] plain = html.append("</body></html>").toString().getBytes(StandardCharsets.UTF_8);
+        java.io.ByteArrayOutputStream zipped = new java.io.ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(zipped)) {
+            gzip.write(plain);
+        }
+        byte[] gzipped = zipped.toByteArray();
+
+        HttpServer[] server = new HttpServer[servers];
+        AtomicInteger[] active = new AtomicInteger[servers], peak = new AtomicInteger[servers];
+        ExecutorService serverThreads = Executors.newCachedThreadPool(); // The stand-in blocks while "working"
+        for (int s = 0; s < servers; s++) {
+            AtomicInteger now = active[s] = new AtomicInteger(), most = peak[s] = new AtomicInteger();
+            server[s] = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 1024);
+            server[s].createContext("/", exchange -> {
+                most.accumulateAndGet(now.incrementAndGet(), Math::max);
+                try {
+                    Thread.sleep(delayMillis);
+                    boolean gzip = exchange.getRequestHeaders().getFirst("Accept-Encoding") != null
+                            && exchange.getRequestHeaders().getFirst("Accept-Encoding").contains("gzip");
+                    byte[] body = gzip ? gzipped : plain;
+                    exchange.getResponseHeaders().set("Content-Type", "text/html; charset=UTF-8");
+                    if (gzip) {
+                        exchange.getResponseHeaders().set("Content-Encoding", "gzip");
+                    }
+                    exchange.sendResponseHeaders(200, body.length);
+                    try (OutputStream out = exchange.getResponseBody()) {
+                        out.write(body);
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    now.decrementAndGet();
+                    exchange.close();
+                }
+            });
+            server[s].setExecutor(serverThreads);
+            server[s].start();
+        }
+
+        try (FetchEngine engine = new FetchEngine(perHost, DEFAULT_CONNECT_TIMEOUT, DEFAULT_REQUEST_TIMEOUT)) {
+            CountDownLatch done = new CountDownLatch(pages);
+            AtomicInteger ok = new AtomicInteger(), failed = new AtomicInteger(), mostInFlight = new AtomicInteger();
+            long start = System.nanoTime();
+            for (int i = 0; i < pages; i++) {
+                InetSocketAddress address = server[i % servers].getAddress();
+                URI uri = URI.create("http://127.0.0.1:" + address.getPort() + "/page/" + i);
+                engine.fetch(uri).whenComplete((page, error) -> {
+                    if (error == null && page.status == 200 && page.body.length() == plain.length) {
+                        ok.incrementAndGet();
+                    } else {
+                        failed.incrementAndGet();
+                    }
+                    done.countDown();
+                });
+                mostInFlight.accumulateAndGet(engine.inFlight(), Math::max);
+            }
+            done.await();
+            long millis = (System.nanoTime() - start) / 1_000_000;
+            System.out.printf("%d pages (%d ok, %d failed) in %d ms, %.0f pages/s, up to %d in flight%n", pages,
+                    ok.get(), failed.get(), millis, pages * 1000.0 / Math.max(1, millis), mostInFlight.get());
+            for (int s = 0; s < servers; s++) {
+                System.out.printf("server %d: at most %d requests at once (limit %d)%n", s, peak[s].get(), perHost);
+            }
+        } finally {
+            for (HttpServer s : server) {
+                s.stop(0);
+            }
+            serverThreads.shutdownNow();
+        }
+    }
+}
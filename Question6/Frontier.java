@@ -0,0 +1,167 @@
+package Question6;
+
+/*
+ * Working Mechanism:
+ * Crawl frontier: the URLs still to fetch, grouped by host, and the thread that hands them out.
+ * - Every host has its own FIFO queue, so pages of one site are fetched in the order they were
+ *   found. Hosts that have queued URLs sit in a priority queue ordered by the time they may next
+ *   be contacted, so the scheduler always looks at the host that becomes ready first.
+ * - Politeness: two requests to the same host start at least 'politeness' apart, however many
+ *   of its URLs are waiting; other hosts are served in the meantime.
+ * - A dispatcher thread hands out URLs continuously: as soon as a host is ready and fewer than
+ *   maxInFlight fetches are running, the next URL goes to the callback given to start(). It
+ *   waits (no polling) until add() or done() changes something, or the next host becomes ready.
+ * - Completion is counted: every URL taken in is either queued or in flight, and the crawl is
+ *   over exactly when both counts are zero. The fetch handler must add() the links it found
+ *   before calling done() for the page, so the count cannot touch zero while more work is coming.
+ * - A dispatch callback that throws (the fetch could not even be started) does not stop the
+ *   dispatcher: the URL is counted as done and handed to the error callback given to start(),
+ *   so the crawl still ends and onFinished still runs.
+ * - At most maxPages URLs are ever taken in, and each URL only once: URLs are put in canonical
+ *   form and checked against a UrlDedup before the frontier lock is taken, so the dedup work of
+ *   many fetch threads runs in parallel and only the queueing itself is serialized.
+ * - Once maxPages URLs are in, a volatile flag makes add() return at once, before any dedup
+ *   work. Without it, every link found after the cap would still be canonicalized and recorded
+ *   in the UrlDedup, which is sized for maxPages. The count checked under the lock stays the
+ *   authority; the flag only stops the extra work.
+ */
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+final class Frontier {
+    // URLs waiting for one host, and when that host may be contacted again.
+    private static final class HostQueue {
+        final ArrayDeque<URI> urls = new ArrayDeque<>();
+        long readyAt; // System.nanoTime() before which no request may start
+        boolean scheduled; // In the ready queue
+    }
+
+    private final int maxPages; // URLs taken in over the whole crawl
+    private final int maxInFlight; // Fetches running at once, over all hosts
+    private final long politenessNanos; // Gap between two request starts to one host
+    private final Runnable onFinished; // Called once, on the dispatcher thread, when the crawl is over
+    private final UrlDedup seen; // Every URL taken in (canonical form); thread-safe on its own
+    private volatile boolean full; // Set once admitted reaches maxPages; never cleared
+
+    // All guarded by this
+    private final Map<String, HostQueue> hosts = new HashMap<>(); // Key: scheme://host:port
+    private final PriorityQueue<HostQueue> ready = new PriorityQueue<>(
+            (a, b) -> Long.compare(a.readyAt, b.readyAt)); // Hosts with queued URLs, earliest first
+    private int admitted; // URLs taken in
+    private int queued; // URLs waiting in host queues
+    private int inFlight; // URLs handed out and not done yet
+    private int dispatched; // URLs handed out so far
+
+    private Thread dispatcher;
+
+    Frontier(int maxPages, int maxInFlight, Duration politeness, Runnable onFinished) {
+        this.maxPages = maxPages;
+        this.maxInFlight = maxInFlight;
+        this.politenessNanos = politeness.toNanos();
+        this.onFinished = onFinished;
+        this.seen = new UrlDedup(maxPages);
+    }
+
+    // Queues a URL unless it was seen before or the page limit is reached. Returns true if queued.
+    boolean add(URI uri) {
+        if (full) {
+            return false; // Page limit reached: skip the dedup work
+        }
+        URI canonical = UrlDedup.canonicalize(uri);
+        return seen.add(canonical) && enqueue(canonical); // Atomic: only one caller gets true per URL
+    }
+
+    private synchronized boolean enqueue(URI uri) {
+        if (admitted >= maxPages) {
+            return false; // Lost the race with the last URL before the flag was set
+        }
+        if (++admitted == maxPages) {
+            full = true;
+        }
+        HostQueue host = hosts.computeIfAbsent(uri.getScheme() + "://" + uri.getHost() + ":" + uri.getPort(),
+                k -> new HostQueue());
+        host.urls.add(uri);
+        queued++;
+        if (!host.scheduled) {
+            host.scheduled = true;
+            ready.add(host);
+        }
+        notifyAll(); // The dispatcher may be waiting for work
+        return true;
+    }
+
+    // Marks a dispatched URL as finished (fetched or failed).
+    synchronized void done() {
+        inFlight--;
+        notifyAll();
+    }
+
+    synchronized int dispatchedCount() {
+        return dispatched;
+    }
+
+    // Starts handing out URLs on a background thread; dispatch starts one fetch and must not block.
+    // If dispatch throws, the URL is marked done and passed to onError with the exception.
+    synchronized void start(Consumer<URI> dispatch, BiConsumer<URI, RuntimeException> onError) {
+        dispatcher = new Thread(() -> run(dispatch, onError), "crawl-dispatcher");
+        dispatcher.setDaemon(true);
+        dispatcher.start();
+    }
+
+    private void run(Consumer<URI> dispatch, BiConsumer<URI, RuntimeException> onError) {
+        try {
+            URI next;
+            while ((next = take()) != null) {
+                try {
+                    dispatch.accept(next); // Outside the lock: fetches complete on other threads and call done()
+                } catch (RuntimeException e) { // Not started, so no completion will call done()
+                    done();
+                    onError.accept(next, e);
+                }
+            }
+        } catch (InterruptedException e) {
+            return; // Abandoned without finishing
+        }
+        seen.close();
+        onFinished.run();
+    }
+
+    // Waits until a URL may be fetched and returns it, or returns null once the crawl is over.
+    private synchronized URI take() throws InterruptedException {
+        while (true) {
+            if (queued == 0 && inFlight == 0) {
+                return null; // Nothing waiting and nothing that could still find more
+            }
+            HostQueue host = ready.peek();
+            if (host == null || inFlight >= maxInFlight) {
+                wait(); // Woken by add() or done()
+                continue;
+            }
+            long now = System.nanoTime();
+            if (host.readyAt > now) {
+                long nanos = host.readyAt - now;
+                wait(nanos / 1_000_000, (int) (nanos % 1_000_000)); // Until the host is ready, or earlier news
+                continue;
+            }
+            ready.poll();
+            URI uri = host.urls.poll();
+            queued--;
+            inFlight++;
+            dispatched++;
+            host.readyAt = now + politenessNanos;
+            if (host.urls.isEmpty()) {
+                host.scheduled = false;
+            } else {
+                ready.add(host); // Back in line at its new ready time
+            }
+            return uri;
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package Question6;
+
+/*
+ * Printer shared by Question6A, TurnCoordinator, Sequencer and BufferedNumberPrinter; it has its
+ * own file so that all of them can use it.
+ */
+
+// Provided NumberPrinter class; do not modify.
+class NumberPrinter {
+    public void printZero() {
+        System.out.print("0"); // Print 0 without newline
+    }
+
+    public void printEven(int num) {
+        System.out.print(num); // Print the even number without newline
+    }
+
+    public void printOdd(int num) {
+        System.out.print(num); // Print the odd number without newline
+    }
+}
@@ -109,21 +109,6 @@ public class Question6A {
     }
 }
 
-// Provided NumberPrinter class; do not modify.
-class NumberPrinter {
-    public void printZero() {
-        System.out.print("0"); // Print 0 without newline
-    }
-
-    public void printEven(int num) {
-        System.out.print(num); // Print the even number without newline
-    }
-
-    public void printOdd(int num) {
-        System.out.print(num); // Print the odd number without newline
-    }
-}
-
 /*
  * Input:
  * n = 5 (set in the main method)
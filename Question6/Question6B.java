@@ -1,22 +1,28 @@
 /*
  * Working Mechanism:
  * 1. User enters a seed URL and clicks the "Start Crawling" button.
- * 2. The application uses a thread pool to concurrently crawl web pages.
- * 3. For each page, it fetches the content, logs basic info, and extracts new URLs.
+ * 2. Pages are fetched concurrently by a FetchEngine: asynchronous HttpClient requests (HTTP/2
+ *    when the server supports it, gzip, timeouts) with a limit on requests per host.
+ * 3. For each page, it logs basic info and extracts new URLs (links and bare http(s) addresses),
+ *    which go to the Frontier: one queue per host, served by a dispatcher thread that keeps up to
+ *    MAX_IN_FLIGHT fetches running and waits POLITENESS_MILLIS between requests to the same host.
+ *    Each URL is taken in once, in canonical form, as decided by a UrlDedup (sharded fingerprint
+ *    tables behind a Bloom filter, spilling to memory-mapped files for very large crawls).
  * 4. Crawled data (first 100 characters) and progress logs are displayed in separate tabs.
- * 5. The process stops when a maximum number of URLs is reached or no new URLs are found.
+ * 5. The process stops when a maximum number of URLs is reached or no new URLs are found; the
+ *    Frontier counts queued and running URLs and reports when both reach zero.
  */
 
 package Question6;
 
 import javax.swing.*;
 import java.awt.*;
-import java.io.BufferedReader;
-import java.io.InputStreamReader;
-import java.net.URL;
+import java.net.URI;
 import java.util.*;
-import java.util.concurrent.*;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.time.Duration;
+import java.util.function.BiConsumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 public class Question6B extends JFrame {
     // GUI components
@@ -27,14 +33,15 @@ public class Question6B extends JFrame {
     private JLabel statusLabel; // Label to show crawler status
 
     // Data structures for crawling
-    private Queue<String> urlQueue = new LinkedBlockingQueue<>(); // Thread-safe URL queue
-    private Set<String> visitedUrls = Collections.synchronizedSet(new HashSet<>()); // Thread-safe visited URLs
+    private Frontier frontier; // URLs to crawl, per host; replaced by every new crawl
     private Map<String, String> crawledData = Collections.synchronizedMap(new HashMap<>()); // Thread-safe crawled data
                                                                                             // map
-    private ExecutorService executorService; // Thread pool for crawling tasks
-    private AtomicInteger activeTasks = new AtomicInteger(0); // Counter for active tasks
-    private final int MAX_URLS = 10; // Maximum number of URLs to crawl
-    private final int THREAD_POOL_SIZE = 4; // Thread pool size
+    private final FetchEngine fetchEngine = new FetchEngine(); // Asynchronous fetches, limited per host
+    private final int MAX_URLS = 100; // Maximum number of URLs to crawl
+    private final int MAX_IN_FLIGHT = 32; // Fetches running at once, over all hosts
+    private final int POLITENESS_MILLIS = 200; // Gap between two requests to the same host
+    private static final Pattern LINK = Pattern.compile("href\\s*=\\s*[\"']([^\"'#\\s>]+)",
+            Pattern.CASE_INSENSITIVE); // Link targets in HTML
     private volatile boolean isCrawling = false; // Flag to track crawling state
 
     // Constructor to set up the GUI with a new UI design
@@ -77,7 +84,6 @@ public class Question6B extends JFrame {
         }
 
         setVisible(true);
-        executorService = Executors.newFixedThreadPool(THREAD_POOL_SIZE);
     }
 
     // Method to start crawling based on user input
@@ -91,92 +97,82 @@ public class Question6B extends JFrame {
             JOptionPane.showMessageDialog(this, "Please enter a valid URL.");
             return;
         }
-        urlQueue.clear();
-        visitedUrls.clear();
+        URI seed = toUri(seedUrl);
+        if (seed == null) {
+            JOptionPane.showMessageDialog(this, "Please enter a valid URL.");
+            return;
+        }
         crawledData.clear();
         logArea.setText("");
         dataArea.setText("");
-        urlQueue.add(seedUrl);
         isCrawling = true;
         statusLabel.setText("Status: Crawling");
         startButton.setEnabled(false);
-        crawl();
+        crawl(seed);
     }
 
-    // Main crawling logic
-    private void crawl() {
-        while (!urlQueue.isEmpty() && visitedUrls.size() < MAX_URLS && !executorService.isShutdown()) {
-            String url = urlQueue.poll();
-            if (url != null && !visitedUrls.contains(url)) {
-                visitedUrls.add(url);
-                activeTasks.incrementAndGet();
-                executorService.submit(new CrawlTask(url));
-            }
-        }
-        // Monitor tasks and shutdown when done
-        new Thread(() -> {
-            while (activeTasks.get() > 0) {
-                try {
-                    Thread.sleep(1000);
-                } catch (InterruptedException e) {
-                    Thread.currentThread().interrupt();
-                }
-            }
-            shutdown();
-        }).start();
+    // Main crawling logic: the frontier hands out URLs until none are left
+    private void crawl(URI seed) {
+        Frontier crawl = new Frontier(MAX_URLS, MAX_IN_FLIGHT, Duration.ofMillis(POLITENESS_MILLIS),
+                () -> SwingUtilities.invokeLater(this::shutdown)); // Crawl over: back to the EDT
+        frontier = crawl;
+        crawl.add(seed);
+        crawl.start(uri -> fetchEngine.fetch(uri).whenComplete(new CrawlTask(uri, crawl)), // fetch() returns at once
+                (uri, e) -> SwingUtilities.invokeLater( // fetch() threw: the URL was never started
+                        () -> logArea.append("Error crawling " + uri + ": " + e.getMessage() + "\n")));
     }
 
-    // Method to shut down the thread pool
+    // Method to finish the crawl; the fetch engine stays up for the next one
     private void shutdown() {
-        executorService.shutdown();
-        try {
-            if (!executorService.awaitTermination(60, TimeUnit.SECONDS)) {
-                executorService.shutdownNow();
-                logArea.append("Forced shutdown due to timeout.\n");
-            }
-        } catch (InterruptedException e) {
-            executorService.shutdownNow();
-            Thread.currentThread().interrupt();
-        }
         isCrawling = false;
         statusLabel.setText("Status: Idle");
         startButton.setEnabled(true);
-        logArea.append("Crawling completed. Total URLs crawled: " + visitedUrls.size() + "\n");
+        logArea.append("Crawling completed. Total URLs crawled: " + frontier.dispatchedCount() + "\n");
+    }
+
+    // Absolute http(s) URI without its #fragment, or null if the text is not one.
+    private static URI toUri(String text) {
+        try {
+            URI uri = new URI(text);
+            String scheme = uri.getScheme();
+            if (scheme == null || uri.getHost() == null
+                    || !(scheme.equalsIgnoreCase("http") || scheme.equalsIgnoreCase("https"))) {
+                return null;
+            }
+            return uri.getFragment() == null ? uri
+                    : new URI(uri.getScheme(), uri.getSchemeSpecificPart(), null);
+        } catch (java.net.URISyntaxException e) {
+            return null;
+        }
     }
 
-    // Inner class for crawl task
-    class CrawlTask implements Runnable {
-        private String url; // URL to crawl
+    // Inner class for crawl task: handles the fetched page (or the failure) of one URL
+    class CrawlTask implements BiConsumer<FetchEngine.Page, Throwable> {
+        private final URI uri; // URL to crawl
+        private final String url;
+        private final Frontier crawl; // Crawl this page belongs to
 
-        CrawlTask(String url) {
-            this.url = url;
+        CrawlTask(URI uri, Frontier crawl) {
+            this.uri = uri;
+            this.url = uri.toString();
+            this.crawl = crawl;
         }
 
         @Override
-        public void run() {
+        public void accept(FetchEngine.Page page, Throwable error) {
             try {
-                String content = fetchPage(url);
+                if (error != null) {
+                    throw error;
+                }
+                String content = page.body;
                 processContent(url, content);
                 extractUrls(content);
-            } catch (Exception e) {
+            } catch (Throwable e) {
                 SwingUtilities
                         .invokeLater(() -> logArea.append("Error crawling " + url + ": " + e.getMessage() + "\n"));
             } finally {
-                activeTasks.decrementAndGet();
-            }
-        }
-
-        // Method to fetch web page content
-        private String fetchPage(String urlString) throws Exception {
-            URL url = new URL(urlString);
-            BufferedReader reader = new BufferedReader(new InputStreamReader(url.openStream()));
-            StringBuilder content = new StringBuilder();
-            String line;
-            while ((line = reader.readLine()) != null) {
-                content.append(line).append("\n");
+                crawl.done(); // After extractUrls queued the links, so the crawl cannot end early
             }
-            reader.close();
-            return content.toString();
         }
 
         // Method to process and store content
@@ -189,17 +185,30 @@ public class Question6B extends JFrame {
             });
         }
 
-        // Method to extract new URLs (simplified)
+        // Method to extract new URLs: href targets resolved against this page, and bare http(s) words
         private void extractUrls(String content) {
+            Matcher link = LINK.matcher(content);
+            while (link.find()) {
+                try {
+                    offer(uri.resolve(link.group(1).trim()).toString());
+                } catch (IllegalArgumentException e) {
+                    // Malformed link: skip it
+                }
+            }
             String[] words = content.split("\\s+");
             for (String word : words) {
                 if (word.startsWith("http://") || word.startsWith("https://")) {
-                    if (visitedUrls.size() < MAX_URLS && !visitedUrls.contains(word)) {
-                        urlQueue.add(word);
-                    }
+                    offer(word);
                 }
             }
         }
+
+        private void offer(String text) {
+            URI found = toUri(text);
+            if (found != null) {
+                crawl.add(found); // Ignored if seen before or over MAX_URLS
+            }
+        }
     }
 
     // Main method to launch the GUI
@@ -0,0 +1,230 @@
+package Question6;
+
+/*
+ * Working Mechanism:
+ * Question6A's strict ordering generalised to any number of parties (threads) and any
+ * repeating order. The order is a pattern of party numbers: turn t belongs to party
+ * pattern[t % pattern.length]. For example:
+ * - {0, 1, 0, 2} is Question6A: zero, odd, zero, even, zero, odd, ...
+ * - {0, 1, ..., N-1} is a round-robin where party p handles the numbers with residue p mod N.
+ * Each party runs a loop of await(party) -> do its work -> pass().
+ * - One shared turn counter says whose turn it is. pass() moves it on and unparks only the
+ *   party that owns the next turn, so a handoff costs the same whether there are 2 or 2000
+ *   parties, and no one else is woken to check the counter and go back to sleep.
+ * - Every party has its own Slot holding the thread parked in it and the party's position in
+ *   the pattern. Slots are padded with unused longs so two slots (or a slot and the counter)
+ *   never share a cache line; a write to one does not slow down readers of another.
+ * - Waiting spins (Thread.onSpinWait) and then parks (LockSupport.park), as in TurnCoordinator.
+ *   Spinning is skipped when there are more parties than CPUs, because spinners would then take
+ *   CPU time away from the party whose turn it is.
+ * - Nothing blocks inside synchronized, so parked parties do not hold on to a carrier thread.
+ *   run() takes a ThreadFactory so the parties can be started on any kind of thread; this
+ *   tree targets Java 17, which has only platform threads, but on Java 21 passing
+ *   Thread.ofVirtual().factory() runs the same code on virtual threads.
+ */
+
+import java.lang.invoke.MethodHandles; // Looks up the VarHandle for the turn counter
+import java.lang.invoke.VarHandle;
+import java.util.Arrays;
+import java.util.concurrent.ThreadFactory; // Creates the party threads in run()
+import java.util.concurrent.locks.LockSupport; // Parks and unparks waiting parties
+
+public class Sequencer {
+    private static final int SPIN_LIMIT = 1 << 12; // Checks before parking, when spinning is worthwhile
+    private static final VarHandle TURN; // Access to Turn.value with explicit memory ordering
+
+    static {
+        try {
+            TURN = MethodHandles.lookup().findVarHandle(TurnField.class, "value", long.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private final Turn turn = new Turn(); // Turn being played; only accessed through TURN
+    private final int[] pattern; // Owner of each turn, repeating
+    private final int[][] positions; // positions[party] = indexes in pattern that party owns
+    private final Slot[] slots; // One per party
+    private final int spinLimit;
+
+    // Padding: the JVM lays out superclass fields before subclass fields, so fields declared
+    // between a Pad superclass and a padded subclass get 64 bytes of unused longs on each side.
+    static class Pad {
+        @SuppressWarnings("unused")
+        long p0, p1, p2, p3, p4, p5, p6, p7;
+    }
+
+    static class TurnField extends Pad {
+        long value;
+    }
+
+    // The shared turn counter, on a cache line of its own.
+    static final class Turn extends TurnField {
+        @SuppressWarnings("unused")
+        long q0, q1, q2, q3, q4, q5, q6, q7;
+    }
+
+    static class SlotFields extends Pad {
+        volatile Thread waiter; // Party's thread while it is parked, or null
+        long cursor; // How many turns the party has taken (written by the party only)
+    }
+
+    // One party's wait slot, on a cache line of its own.
+    static final class Slot extends SlotFields {
+        @SuppressWarnings("unused")
+        long q0, q1, q2, q3, q4, q5, q6, q7;
+    }
+
+    // Creates a sequencer for the given repeating order of party numbers (0, 1, 2, ...).
+    public Sequencer(int... pattern) {
+        if (pattern.length == 0) {
+            throw new IllegalArgumentException("Pattern must not be empty");
+        }
+        int parties = 0;
+        for (int party : pattern) {
+            if (party < 0) {
+                throw new IllegalArgumentException("Negative party in pattern: " + party);
+            }
+            parties = Math.max(parties, party + 1);
+        }
+        this.pattern = pattern.clone();
+        int[] count = new int[parties];
+        for (int party : pattern) {
+            count[party]++;
+        }
+        positions = new int[parties][];
+        slots = new Slot[parties];
+        for (int party = 0; party < parties; party++) {
+            if (count[party] == 0) {
+                throw new IllegalArgumentException("Party " + party + " never gets a turn");
+            }
+            positions[party] = new int[count[party]];
+            slots[party] = new Slot();
+        }
+        Arrays.fill(count, 0);
+        for (int i = 0; i < pattern.length; i++) {
+            positions[pattern[i]][count[pattern[i]]++] = i;
+        }
+        spinLimit = parties <= Runtime.getRuntime().availableProcessors() ? SPIN_LIMIT : 0;
+    }
+
+    // Round-robin over N parties: party p takes turns p, p + N, p + 2N, ...
+    public static Sequencer roundRobin(int parties) {
+        int[] pattern = new int[parties];
+        for (int i = 0; i < parties; i++) {
+            pattern[i] = i;
+        }
+        return new Sequencer(pattern);
+    }
+
+    public int parties() {
+        return slots.length;
+    }
+
+    // Waits for the party's next turn and returns its number. Must be followed by pass().
+    // Only one thread may act as a given party.
+    public long await(int party) throws InterruptedException {
+        Slot slot = slots[party];
+        int[] owned = positions[party];
+        long c = slot.cursor++;
+        long t = (c / owned.length) * pattern.length + owned[(int) (c % owned.length)]; // c-th turn of party
+        for (int spins = 0; spins < spinLimit; spins++) {
+            if ((long) TURN.getAcquire(turn) == t) {
+                return t;
+            }
+            Thread.onSpinWait(); // Tell the CPU this is a busy-wait loop
+        }
+        slot.waiter = Thread.currentThread(); // From now on pass() will unpark this thread
+        try {
+            while ((long) TURN.getVolatile(turn) != t) { // Re-read after publishing the slot
+                LockSupport.park(this);
+                if (Thread.interrupted()) {
+                    slot.cursor--; // The turn was not taken
+                    throw new InterruptedException();
+                }
+            }
+        } finally {
+            slot.waiter = null;
+        }
+        return t;
+    }
+
+    // Ends the current turn and wakes the owner of the next one, if it is parked.
+    public void pass() {
+        long next = (long) TURN.getAcquire(turn) + 1; // Only the turn's owner calls this
+        TURN.setVolatile(turn, next);
+        Thread parked = slots[pattern[(int) (next % pattern.length)]].waiter; // Only after the write
+        if (parked != null) {
+            LockSupport.unpark(parked);
+        }
+    }
+
+    // Body of one party.
+    public interface Party {
+        void run() throws InterruptedException;
+    }
+
+    // Runs parties[i] as party i on threads from the factory and waits for all of them.
+    public static void run(ThreadFactory factory, Party... parties) throws InterruptedException {
+        Thread[] threads = new Thread[parties.length];
+        for (int i = 0; i < parties.length; i++) {
+            Party party = parties[i];
+            threads[i] = factory.newThread(() -> {
+                try {
+                    party.run();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt(); // Let the owner of the thread see it
+                }
+            });
+        }
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+    }
+
+    // Main method: Question6A's sequence for n = 5, then 4 threads printing 1..12 in turn
+    public static void main(String[] args) throws InterruptedException {
+        int n = 5;
+        NumberPrinter printer = new NumberPrinter();
+        Sequencer zeroOddEven = new Sequencer(0, 1, 0, 2); // zero, odd, zero, even
+        run(Thread::new, () -> {
+            for (int k = 1; k <= n + 1; k++) { // A 0 before each number and one after the last, like Question6A
+                zeroOddEven.await(0);
+                printer.printZero();
+                zeroOddEven.pass();
+            }
+        }, () -> {
+            for (int k = 1; k <= n; k += 2) {
+                zeroOddEven.await(1);
+                printer.printOdd(k);
+                zeroOddEven.pass();
+            }
+        }, () -> {
+            for (int k = 2; k <= n; k += 2) {
+                zeroOddEven.await(2);
+                printer.printEven(k);
+                zeroOddEven.pass();
+            }
+        });
+        System.out.println(); // Output: 01020304050
+
+        int parties = 4, last = 12;
+        Sequencer roundRobin = roundRobin(parties);
+        Party[] bodies = new Party[parties];
+        for (int p = 0; p < parties; p++) {
+            int residue = p;
+            bodies[p] = () -> {
+                for (int k = residue + 1; k <= last; k += parties) { // Numbers with (k - 1) % parties == residue
+                    roundRobin.await(residue);
+                    System.out.print(k + " ");
+                    roundRobin.pass();
+                }
+            };
+        }
+        run(Thread::new, bodies);
+        System.out.println(); // Output: 1 2 3 ... 12
+    }
+}
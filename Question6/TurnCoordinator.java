@@ -0,0 +1,185 @@
+package Question6;
+
+/*
+ * Working Mechanism:
+ * Drop-in alternative to Question6A's three semaphores: the same printZero/printEven/printOdd
+ * methods and NumberPrinter, coordinated by one shared turn counter instead.
+ * - Turns are numbered 0, 1, 2, ... 2n. Even turns belong to ZeroThread; turn 2k-1 prints the
+ *   number k, so it belongs to OddThread when k is odd and to EvenThread when k is even.
+ * - A thread waits until the counter equals its turn, prints, and moves the counter on. The
+ *   counter is a plain long field read and written through a VarHandle, so a handoff is one
+ *   volatile write and one read, with no lock, no queue node and no allocation.
+ * - Waiting spins first (Thread.onSpinWait), because the next turn usually arrives within a
+ *   microsecond. Only after SPIN_LIMIT checks does the thread publish itself in its waiter slot
+ *   and park; the thread that hands over the turn unparks it only if it is parked. With a
+ *   single CPU spinning cannot help (the other thread is not running), so it parks at once.
+ * - No lost wake-ups: the waiter writes its slot and then re-reads the counter, the signaller
+ *   writes the counter and then reads the slot, all as volatile accesses, so at least one of
+ *   them sees the other's write.
+ * - The output is exactly Question6A's: a 0 before each number and, like Question6A's loop, one
+ *   more 0 after the last number (n + 1 zeros in all).
+ *
+ * main prints the sequence for n = 5, then times both coordinators with a printer that prints
+ * nothing, to compare the cost of one handoff between threads.
+ */
+
+import java.lang.invoke.MethodHandles; // Looks up the VarHandle for the turn counter
+import java.lang.invoke.VarHandle;
+import java.util.concurrent.locks.LockSupport; // Parks and unparks waiting threads
+
+public class TurnCoordinator {
+    private static final int SPIN_LIMIT = Runtime.getRuntime().availableProcessors() > 1 ? 1 << 12 : 0; // Checks before parking
+    private static final VarHandle TURN; // Access to the turn field with explicit memory ordering
+
+    static {
+        try {
+            TURN = MethodHandles.lookup().findVarHandle(TurnCoordinator.class, "turn", long.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private long turn; // Turn being played; only accessed through TURN
+    private volatile Thread zeroWaiter, oddWaiter, evenWaiter; // Thread parked waiting for its turn, or null
+
+    private final int n; // Upper limit for printing numbers
+    private final NumberPrinter printer; // NumberPrinter instance to print numbers
+
+    // Constructor: sets n and the NumberPrinter instance
+    public TurnCoordinator(int n, NumberPrinter printer) {
+        this.n = n; // Set the maximum number to print
+        this.printer = printer; // Set the printer
+    }
+
+    // ZeroThread method: prints "0" before each number, and once more after the last one
+    public void printZero() throws InterruptedException {
+        for (int k = 1; k <= n + 1; k++) {
+            long t = 2L * (k - 1); // Zero turns are the even ones
+            await(t, 0);
+            printer.printZero(); // Print 0
+            if (k <= n) {
+                pass(t + 1, k % 2 == 1 ? 1 : 2); // Number k comes next
+            }
+        }
+    }
+
+    // EvenThread method: prints even numbers
+    public void printEven() throws InterruptedException {
+        for (int k = 2; k <= n; k += 2) {
+            long t = 2L * k - 1;
+            await(t, 2);
+            printer.printEven(k); // Print the even number
+            pass(t + 1, 0); // Back to ZeroThread
+        }
+    }
+
+    // OddThread method: prints odd numbers
+    public void printOdd() throws InterruptedException {
+        for (int k = 1; k <= n; k += 2) {
+            long t = 2L * k - 1;
+            await(t, 1);
+            printer.printOdd(k); // Print the odd number
+            pass(t + 1, 0); // Back to ZeroThread
+        }
+    }
+
+    // Returns once the counter reaches t: spins for a while, then parks until unparked by pass().
+    private void await(long t, int role) throws InterruptedException {
+        for (int spins = 0; spins < SPIN_LIMIT; spins++) {
+            if ((long) TURN.getAcquire(this) == t) {
+                return;
+            }
+            Thread.onSpinWait(); // Tell the CPU this is a busy-wait loop
+        }
+        setWaiter(role, Thread.currentThread()); // From now on pass() will unpark this thread
+        try {
+            while ((long) TURN.getVolatile(this) != t) { // Re-read after publishing the slot
+                LockSupport.park(this);
+                if (Thread.interrupted()) {
+                    throw new InterruptedException();
+                }
+            }
+        } finally {
+            setWaiter(role, null);
+        }
+    }
+
+    // Hands turn t to the thread playing role and wakes it if it went to sleep.
+    private void pass(long t, int role) {
+        TURN.setVolatile(this, t);
+        Thread parked = role == 0 ? zeroWaiter : role == 1 ? oddWaiter : evenWaiter; // Only after the write
+        if (parked != null) {
+            LockSupport.unpark(parked);
+        }
+    }
+
+    private void setWaiter(int role, Thread thread) {
+        if (role == 0) {
+            zeroWaiter = thread;
+        } else if (role == 1) {
+            oddWaiter = thread;
+        } else {
+            evenWaiter = thread;
+        }
+    }
+
+    // Main method: prints the sequence for n = 5, then compares handoff times with Question6A
+    public static void main(String[] args) throws InterruptedException {
+        NumberPrinter printer = new NumberPrinter();
+        TurnCoordinator controller = new TurnCoordinator(5, printer);
+        run(controller::printZero, controller::printEven, controller::printOdd);
+        System.out.println();
+
+        int n = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000; // Numbers per timed run
+        NumberPrinter silent = new NumberPrinter() { // Measures coordination only, not printing
+            @Override
+            public void printZero() {
+            }
+
+            @Override
+            public void printEven(int num) {
+            }
+
+            @Override
+            public void printOdd(int num) {
+            }
+        };
+        for (int round = 0; round < 3; round++) { // The first rounds also warm up the JIT
+            Question6A semaphores = new Question6A(n, silent);
+            long semaphoreNanos = run(semaphores::printZero, semaphores::printEven, semaphores::printOdd);
+            TurnCoordinator turns = new TurnCoordinator(n, silent);
+            long turnNanos = run(turns::printZero, turns::printEven, turns::printOdd);
+            System.out.printf("n=%d  semaphores: %.1f ns/handoff  turn counter: %.1f ns/handoff%n", n,
+                    (double) semaphoreNanos / (2L * n), (double) turnNanos / (2L * n));
+        }
+    }
+
+    // One of the three printing methods.
+    interface Part {
+        void run() throws InterruptedException;
+    }
+
+    // Runs the three parts on their own threads and returns the elapsed time in nanoseconds.
+    static long run(Part zero, Part even, Part odd) throws InterruptedException {
+        Thread[] threads = new Thread[3];
+        Part[] parts = { zero, even, odd };
+        for (int i = 0; i < 3; i++) {
+            Part part = parts[i];
+            threads[i] = new Thread(() -> {
+                try {
+                    part.run();
+                } catch (InterruptedException e) {
+                    e.printStackTrace();
+                }
+            });
+        }
+        long start = System.nanoTime();
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        return System.nanoTime() - start;
+    }
+}
@@ -0,0 +1,358 @@
+package Question6;
+
+/*
+ * Working Mechanism:
+ * Remembers which URLs the crawler has already taken in, for crawls of tens of millions of URLs.
+ * - URLs are first put in canonical form (lower-case scheme and host, no default port, no
+ *   #fragment, "." and ".." segments resolved, "/" for an empty path, upper-case %xx escapes),
+ *   so different spellings of one address count once.
+ * - Only a 64-bit fingerprint of the canonical form is stored (8 bytes instead of a String).
+ *   With 64 bits, the chance that two of 10^8 URLs share a fingerprint is below 1 in 1000.
+ * - Fingerprints are split over SHARDS shards by their top bits. add() locks only its shard, so
+ *   crawl threads rarely wait for each other, and the check and the insert happen under the same
+ *   lock: two threads adding the same URL at once cannot both be told it is new.
+ * - Each shard keeps recent fingerprints in a primitive open-addressing table in memory. When it
+ *   is full, the table is sorted and written to disk as a run, which is memory-mapped read-only
+ *   and searched with binary search; when a shard has more than MAX_RUNS runs they are merged
+ *   into one. The heap use is fixed by the table sizes; the runs live in the page cache.
+ * - A blocked Bloom filter over every fingerprint (an AtomicLongArray, updated lock-free) sits in front:
+ *   a URL the filter has never seen is new without looking at the table or the disk runs, which
+ *   is the common case for fresh links. mightContain() can be asked without any lock.
+ * - close() deletes the run files.
+ */
+
+import java.io.IOException;
+import java.io.UncheckedIOException; // add() cannot throw IOException
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+final class UrlDedup implements AutoCloseable {
+    static final int SHARDS = 64; // Independent locks and tables (a power of two)
+    static final int DEFAULT_MEMORY_ENTRIES = 1 << 20; // Fingerprints kept in memory over all shards
+    private static final int MAX_RUNS = 8; // Runs per shard before they are merged
+    private static final int BLOOM_BITS_PER_URL = 10; // About 1% false positives with 7 hashes
+    private static final int BLOOM_HASHES = 7;
+
+    private final Shard[] shards = new Shard[SHARDS];
+    private final AtomicLongArray bloom; // Blocks of 8 words (512 bits)
+    private final long blockMask; // Block count - 1 (a power of two)
+    private final Path directory; // Where runs are written; created on the first spill
+    private final int shardEntries; // In-memory fingerprints per shard before a spill
+
+    // expectedUrls sizes the Bloom filter; memoryEntries bounds the fingerprints kept on the heap.
+    UrlDedup(long expectedUrls, int memoryEntries, Path directory) {
+        long blocks = Long.highestOneBit(Math.max(1, expectedUrls * BLOOM_BITS_PER_URL / 512 - 1)) << 1;
+        blocks = Math.min(blocks, 1L << 27); // 8 GB of filter is more than any crawl here needs
+        this.bloom = new AtomicLongArray((int) blocks << 3);
+        this.blockMask = blocks - 1;
+        this.directory = directory;
+        this.shardEntries = Math.max(16, memoryEntries / SHARDS);
+        for (int i = 0; i < SHARDS; i++) {
+            shards[i] = new Shard(i);
+        }
+    }
+
+    UrlDedup(long expectedUrls) {
+        this(expectedUrls, (int) Math.min(DEFAULT_MEMORY_ENTRIES, expectedUrls),
+                Path.of(System.getProperty("java.io.tmpdir"), "crawl-seen-" + ProcessHandle.current().pid() + "-"
+                        + System.nanoTime()));
+    }
+
+    // Canonical form of an absolute URI, used both as the dedup key and as the address to fetch.
+    static URI canonicalize(URI uri) {
+        String scheme = uri.getScheme().toLowerCase(Locale.ROOT);
+        String host = uri.getHost().toLowerCase(Locale.ROOT);
+        int port = uri.getPort();
+        if ((port == 80 && scheme.equals("http")) || (port == 443 && scheme.equals("https"))) {
+            port = -1; // The default port is the same address without it
+        }
+        String path = uri.normalize().getRawPath(); // Resolves "." and ".." segments
+        StringBuilder text = new StringBuilder(scheme).append("://");
+        if (uri.getRawUserInfo() != null) {
+            text.append(uri.getRawUserInfo()).append('@');
+        }
+        text.append(host);
+        if (port != -1) {
+            text.append(':').append(port);
+        }
+        appendEscaped(text, path == null || path.isEmpty() ? "/" : path);
+        if (uri.getRawQuery() != null) {
+            appendEscaped(text.append('?'), uri.getRawQuery());
+        }
+        return URI.create(text.toString());
+    }
+
+    // Appends raw, upper-casing the two hex digits after every '%'.
+    private static void appendEscaped(StringBuilder text, String raw) {
+        for (int i = 0; i < raw.length(); i++) {
+            char c = raw.charAt(i);
+            boolean hexDigit = i >= 1 && raw.charAt(i - 1) == '%' || i >= 2 && raw.charAt(i - 2) == '%';
+            text.append(hexDigit ? Character.toUpperCase(c) : c);
+        }
+    }
+
+    // 64-bit fingerprint of a canonical URL: FNV-1a over the characters, then a final mix so the
+    // high bits (shard) and the low bits (table slot) are both well spread. Never 0.
+    static long fingerprint(String canonical) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < canonical.length(); i++) {
+            h = (h ^ canonical.charAt(i)) * 0x100000001b3L;
+        }
+        h = mix(h);
+        return h == 0 ? 1 : h;
+    }
+
+    private static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        return h ^ (h >>> 33);
+    }
+
+    // Records the canonical URL; true if it had not been added before. Safe from any thread.
+    boolean add(URI canonical) {
+        long fp = fingerprint(canonical.toString());
+        Shard shard = shards[(int) (fp >>> 58) & (SHARDS - 1)];
+        synchronized (shard) {
+            if (mightContain(fp) && shard.contains(fp)) { // Filter says "maybe": check for real
+                return false;
+            }
+            shard.add(fp);
+            addToFilter(fp);
+            return true;
+        }
+    }
+
+    // False means the URL was certainly never added; true means it probably was. Lock-free.
+    boolean mightContain(URI canonical) {
+        return mightContain(fingerprint(canonical.toString()));
+    }
+
+    // The filter is split into 512-bit blocks (one cache line); all bits of one fingerprint fall in
+    // the block chosen by its low bits, so a check or an insert touches one line of memory, not 7.
+    private boolean mightContain(long fp) {
+        int block = (int) (fp & blockMask) << 3; // First word of the block
+        long h2 = mix(fp ^ 0x9e3779b97f4a7c15L); // 7 bit positions of 9 bits each
+        for (int i = 0; i < BLOOM_HASHES; i++) {
+            int bit = (int) (h2 >>> (9 * i)) & 511;
+            if ((bloom.get(block + (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void addToFilter(long fp) {
+        int block = (int) (fp & blockMask) << 3;
+        long h2 = mix(fp ^ 0x9e3779b97f4a7c15L);
+        for (int i = 0; i < BLOOM_HASHES; i++) {
+            int bit = (int) (h2 >>> (9 * i)) & 511;
+            int word = block + (bit >>> 6);
+            long mask = 1L << bit;
+            long old = bloom.get(word);
+            while ((old & mask) == 0 && !bloom.weakCompareAndSetVolatile(word, old, old | mask)) {
+                old = bloom.get(word); // Another bit of the word changed meanwhile: retry
+            }
+        }
+    }
+
+    // URLs added so far.
+    long size() {
+        long total = 0;
+        for (Shard shard : shards) {
+            synchronized (shard) {
+                total += shard.size;
+            }
+        }
+        return total;
+    }
+
+    @Override
+    public void close() {
+        for (Shard shard : shards) {
+            synchronized (shard) {
+                shard.deleteRuns();
+            }
+        }
+        try {
+            Files.deleteIfExists(directory);
+        } catch (IOException e) {
+            // Left behind in the temporary directory
+        }
+    }
+
+    // One slice of the fingerprint space: a table in memory plus sorted runs on disk.
+    private final class Shard {
+        private final int index;
+        private final long[] table; // Open addressing, 0 = empty slot; at most half full
+        private int tableCount;
+        private long size; // Fingerprints in the table and in all runs
+        private final List<LongBuffer> runs = new ArrayList<>(); // Sorted, mapped read-only
+        private final List<Path> runFiles = new ArrayList<>();
+        private int nextRun; // Number for the next run file
+
+        Shard(int index) {
+            this.index = index;
+            this.table = new long[Integer.highestOneBit(shardEntries * 2 - 1) << 1]; // Power of two, >= 2x entries
+        }
+
+        boolean contains(long fp) {
+            int mask = table.length - 1;
+            for (int slot = (int) fp & mask; table[slot] != 0; slot = (slot + 1) & mask) {
+                if (table[slot] == fp) {
+                    return true;
+                }
+            }
+            for (LongBuffer run : runs) {
+                if (search(run, fp)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        void add(long fp) {
+            int mask = table.length - 1;
+            int slot = (int) fp & mask;
+            while (table[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            table[slot] = fp;
+            tableCount++;
+            size++;
+            if (tableCount >= shardEntries) {
+                try {
+                    spill();
+                } catch (IOException e) {
+                    throw new UncheckedIOException("Cannot write visited-URL run to " + directory, e);
+                }
+            }
+        }
+
+        // Writes the table to disk as a sorted run and empties it.
+        private void spill() throws IOException {
+            long[] sorted = new long[tableCount];
+            int n = 0;
+            for (long fp : table) {
+                if (fp != 0) {
+                    sorted[n++] = fp;
+                }
+            }
+            Arrays.sort(sorted);
+            ByteBuffer buf = ByteBuffer.allocate(8 * n).order(ByteOrder.LITTLE_ENDIAN);
+            buf.asLongBuffer().put(sorted);
+            addRun(buf);
+            Arrays.fill(table, 0);
+            tableCount = 0;
+            if (runs.size() > MAX_RUNS) {
+                merge();
+            }
+        }
+
+        // Merges every run into one, streaming from the mappings into a new run file.
+        private void merge() throws IOException {
+            int k = runs.size();
+            int[] at = new int[k];
+            long total = 0;
+            for (LongBuffer run : runs) {
+                total += run.limit();
+            }
+            Path file = newRunFile();
+            try (FileChannel out = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+                ByteBuffer buf = ByteBuffer.allocateDirect(1 << 16).order(ByteOrder.LITTLE_ENDIAN);
+                for (long written = 0; written < total; written++) {
+                    int best = -1;
+                    for (int r = 0; r < k; r++) { // k is small: a linear scan beats a heap here
+                        if (at[r] < runs.get(r).limit()
+                                && (best == -1 || runs.get(r).get(at[r]) < runs.get(best).get(at[best]))) {
+                            best = r;
+                        }
+                    }
+                    if (!buf.hasRemaining()) {
+                        drain(out, buf);
+                    }
+                    buf.putLong(runs.get(best).get(at[best]++));
+                }
+                drain(out, buf);
+            }
+            deleteRuns();
+            runFiles.add(file);
+            runs.add(map(file));
+        }
+
+        private void addRun(ByteBuffer data) throws IOException {
+            Path file = newRunFile();
+            try (FileChannel out = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+                while (data.hasRemaining()) {
+                    out.write(data);
+                }
+            }
+            runFiles.add(file);
+            runs.add(map(file));
+        }
+
+        private Path newRunFile() throws IOException {
+            Files.createDirectories(directory);
+            return directory.resolve("shard-" + index + "-" + nextRun++ + ".run");
+        }
+
+        private LongBuffer map(Path file) throws IOException {
+            try (FileChannel in = FileChannel.open(file, StandardOpenOption.READ)) {
+                if (in.size() > Integer.MAX_VALUE) { // One mapping per run; 2^28 fingerprints per shard
+                    throw new IOException("Visited-URL run too large: " + file);
+                }
+                return in.map(FileChannel.MapMode.READ_ONLY, 0, in.size()).order(ByteOrder.LITTLE_ENDIAN)
+                        .asLongBuffer(); // Stays valid after the channel closes
+            }
+        }
+
+        // Drops the runs; the mappings are released by the garbage collector.
+        void deleteRuns() {
+            for (Path file : runFiles) {
+                try {
+                    Files.deleteIfExists(file);
+                } catch (IOException e) {
+                    // Left behind in the temporary directory
+                }
+            }
+            runFiles.clear();
+            runs.clear();
+        }
+    }
+
+    private static boolean search(LongBuffer run, long fp) {
+        int lo = 0, hi = run.limit() - 1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            long v = run.get(mid);
+            if (v < fp) {
+                lo = mid + 1;
+            } else if (v > fp) {
+                hi = mid - 1;
+            } else {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static void drain(FileChannel out, ByteBuffer buf) throws IOException {
+        buf.flip();
+        while (buf.hasRemaining()) {
+            out.write(buf);
+        }
+        buf.clear();
+    }
+}